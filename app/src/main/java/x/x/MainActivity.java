@@ -1,27 +1,33 @@
 package x.x;
 
 import android.os.Bundle;
-import android.os.Handler;
 import android.support.design.widget.Snackbar;
 import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.GridLayoutManager;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.support.v7.widget.StaggeredGridLayoutManager;
+import android.util.SparseIntArray;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-import o.o.SimpleRefreshAdapter;
+import o.o.DataLoader;
+import o.o.PageSizeController;
+import o.o.SimpleListAdapter;
+import o.o.Snapshot;
 
 public class MainActivity extends AppCompatActivity {
 
-    private MyAdapter adapter;
-    private Handler handler;
+    private MyAdapter<String> adapter;
     private RecyclerView.LayoutManager[] layoutManager = new RecyclerView.LayoutManager[3];
 
     @Override
@@ -31,36 +37,62 @@ public class MainActivity extends AppCompatActivity {
         init();
     }
 
-    private void init() {
-        handler = new Handler();
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        adapter.cancelLoads();
+        adapter.setTrimMemoryEnabled(false);
+    }
 
+    private void init() {
         layoutManager[0] = new LinearLayoutManager(this);
         layoutManager[1] = new GridLayoutManager(this, 2);
         layoutManager[2] = new StaggeredGridLayoutManager(2, StaggeredGridLayoutManager.VERTICAL);
 
         adapter = new MyAdapter<String>(new ArrayList<String>());
-        adapter.setOnRefreshListener(new SimpleRefreshAdapter.OnRefreshListener() {
+        adapter.setPrefetchDistance(4);
+        adapter.setLayoutFreePull(true);
+        adapter.setSpeculativeRefresh(true);
+        adapter.setTrimMemoryEnabled(true);
+        adapter.setPageSizeController(new PageSizeController(10, 60));
+        adapter.setItemSizeCacheEnabled(true);
+        adapter.setSnapshot(new Snapshot<>(new File(getCacheDir(), "first_page"), 1, new Snapshot.Serializer<String>() {
             @Override
-            public void onRefresh() {
-                refresh();
+            public void write(DataOutputStream out, List<String> list) throws IOException {
+                out.writeInt(list.size());
+                for (String s : list)
+                    out.writeUTF(s);
             }
 
             @Override
-            public void onLoadMore() {
-                loadMore();
+            public List<String> read(DataInputStream in) throws IOException {
+                int size = in.readInt();
+                List<String> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++)
+                    list.add(in.readUTF());
+                return list;
+            }
+        }));
+        adapter.setDataLoader(new DataLoader<String>() {
+            @Override
+            public List<String> load(DataLoader.LoadRequest request) throws Exception {
+                Thread.sleep(2000);
+                return getData(request.loadSize > 0 ? request.loadSize : 10);
             }
         });
 
         final RecyclerView recyclerView = (RecyclerView) findViewById(R.id.recyclerView);
         recyclerView.setLayoutManager(layoutManager[2]);
         recyclerView.setAdapter(adapter);
+        SparseIntArray counts = new SparseIntArray();
+        counts.put(MyAdapter.TYPE_ITEM, 8);
+        adapter.preInflate(recyclerView, counts);
 
         findViewById(R.id.fab).setOnClickListener(new View.OnClickListener() {
             private int index;
 
             @Override
             public void onClick(View view) {
-                recyclerView.setOnTouchListener(null);
                 recyclerView.clearOnChildAttachStateChangeListeners();
                 recyclerView.setLayoutManager(layoutManager[index++ % 3]);
                 recyclerView.setAdapter(adapter);
@@ -68,61 +100,22 @@ public class MainActivity extends AppCompatActivity {
             }
         });
 
-        adapter.setRefreshing(true);
-        handler.postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                adapter.setData(getData());
-                adapter.setRefreshing(false);
-            }
-        }, 3000);
-    }
-
-    private void refresh() {
-        handler.postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                adapter.setData(getData());
-                adapter.notifyRefreshCompleted();
-            }
-        }, 2000);
+        adapter.refresh();
     }
 
-    private void loadMore() {
-        handler.postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                adapter.addData(getData());
-                adapter.notifyLoadMoreCompleted();
-            }
-        }, 2000);
-    }
-
-    private ArrayList<String> getData() {
+    private ArrayList<String> getData(int size) {
         ArrayList<String> list = new ArrayList<>();
-        for (int i = 0; i < 10; i++)
+        for (int i = 0; i < size; i++)
             list.add("0.0");
         return list;
     }
 
-    private static class MyAdapter<T> extends SimpleRefreshAdapter<MyAdapter.ViewHolder> {
+    private static class MyAdapter<T> extends SimpleListAdapter<T, MyAdapter.ViewHolder> {
 
         public static final int TYPE_ITEM = 0;
-        private List<T> mList;
 
         public MyAdapter(List<T> list) {
-            mList = list;
-        }
-
-        public void setData(List<T> list) {
-            mList = list;
-            notifyDataSetChanged();
-        }
-
-        public void addData(List<T> list) {
-            int size = mList == null ? 0 : mList.size();
-            mList.addAll(list);
-            notifyItemRangeInserted(size + 1, list.size());
+            super(list);
         }
 
         @Override
@@ -131,15 +124,8 @@ public class MainActivity extends AppCompatActivity {
         }
 
         @Override
-        public void onViewAttachedToWindow(RecyclerView.ViewHolder holder) {
-            super.onViewAttachedToWindow(holder);
-            ViewGroup.LayoutParams layoutParams = holder.itemView.getLayoutParams();
-            if (layoutParams instanceof StaggeredGridLayoutManager.LayoutParams) {
-                //if (position != 0 && position != getItemCount() - 1)
-                if (holder instanceof ViewHolder)
-                    layoutParams.height = holder.getLayoutPosition() % 2 == 0 ? 600 : 900;
-                //holder.itemView.setLayoutParams(layoutParams);    //在此设置item宽高，不需要调用setLayoutParams(),减少重绘次数
-            }
+        protected int getCustomItemSize(int position) {
+            return position % 2 == 0 ? 600 : 900;
         }
 
         @Override
@@ -160,11 +146,6 @@ public class MainActivity extends AppCompatActivity {
             return TYPE_ITEM;
         }
 
-        @Override
-        protected int getCustomItemCount() {
-            return mList == null ? 0 : mList.size();
-        }
-
         static class ViewHolder extends RecyclerView.ViewHolder {
             TextView tv_position;
 
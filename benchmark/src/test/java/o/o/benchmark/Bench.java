@@ -0,0 +1,107 @@
+package o.o.benchmark;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * @author https://github.com/timelessx
+ *         简单的基准测试工具：预热后跑多轮取中位数，同时用ThreadMXBean统计当前线程分配的字节数；
+ *         结果追加到 benchmark.dir/results.csv，每行带上 benchmark.tag，方便对比不同版本
+ */
+final class Bench {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 10;
+    private static final String HEADER = "tag,benchmark,params,ns_per_op,bytes_per_op,ops_per_round";
+
+    private static com.sun.management.ThreadMXBean sThreadBean;
+
+    interface Op {
+        /**
+         * 执行ops次被测操作
+         */
+        void run(int ops);
+    }
+
+    private Bench() {
+    }
+
+    static Result measure(String name, String params, int ops, Op op) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++)
+            op.run(ops);
+        long[] times = new long[ROUNDS];
+        long minBytes = Long.MAX_VALUE;     //取最小值，排除GC和JIT线程之外偶尔的干扰
+        for (int i = 0; i < ROUNDS; i++) {
+            long bytes = allocatedBytes();
+            long start = System.nanoTime();
+            op.run(ops);
+            times[i] = System.nanoTime() - start;
+            minBytes = Math.min(minBytes, allocatedBytes() - bytes);
+        }
+        Arrays.sort(times);
+        Result result = new Result(name, params, ops, (double) times[ROUNDS / 2] / ops, (double) minBytes / ops);
+        report(result);
+        return result;
+    }
+
+    /**
+     * 需要HotSpot的com.sun.management.ThreadMXBean，不支持时直接失败，不输出没有分配数据的结果
+     */
+    private static long allocatedBytes() {
+        if (sThreadBean == null) {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (!(bean instanceof com.sun.management.ThreadMXBean))
+                throw new IllegalStateException("per-thread allocation counting needs a HotSpot JVM, got " + bean);
+            com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+            if (!threadBean.isThreadAllocatedMemorySupported())
+                throw new IllegalStateException("thread allocated memory is not supported by this JVM");
+            threadBean.setThreadAllocatedMemoryEnabled(true);
+            sThreadBean = threadBean;
+        }
+        return sThreadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static synchronized void report(Result result) {
+        String line = System.getProperty("benchmark.tag", "local") + ',' + result.name + ',' + result.params + ','
+                + String.format("%.2f,%.2f,%d", result.nanosPerOp, result.bytesPerOp, result.ops);
+        System.out.println(line);
+        String dir = System.getProperty("benchmark.dir");
+        if (dir == null)
+            return;
+        File file = new File(dir, "results.csv");
+        boolean exists = file.exists();
+        file.getParentFile().mkdirs();
+        PrintWriter writer = null;
+        try {
+            writer = new PrintWriter(new FileWriter(file, true));
+            if (!exists)
+                writer.println(HEADER);
+            writer.println(line);
+        } catch (IOException e) {
+            System.err.println("benchmark report failed: " + e);
+        } finally {
+            if (writer != null)
+                writer.close();
+        }
+    }
+
+    static final class Result {
+        final String name;
+        final String params;
+        final int ops;
+        final double nanosPerOp;
+        final double bytesPerOp;
+
+        Result(String name, String params, int ops, double nanosPerOp, double bytesPerOp) {
+            this.name = name;
+            this.params = params;
+            this.ops = ops;
+            this.nanosPerOp = nanosPerOp;
+            this.bytesPerOp = bytesPerOp;
+        }
+    }
+}
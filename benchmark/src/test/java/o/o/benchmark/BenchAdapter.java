@@ -0,0 +1,64 @@
+package o.o.benchmark;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import o.o.SimpleRefreshAdapter;
+
+/**
+ * @author https://github.com/timelessx
+ *         固定数量、固定高度item的Adapter，绑定时只计数，测的是SimpleRefreshAdapter本身的开销
+ */
+class BenchAdapter extends SimpleRefreshAdapter<BenchAdapter.ItemHolder> {
+
+    static final int TYPE_ITEM = 0;
+    static final int ITEM_HEIGHT = 100;
+
+    private final int mCount;
+    int mBindCount;
+
+    BenchAdapter(int count) {
+        mCount = count;
+        setOnRefreshListener(new OnRefreshListener() {
+            @Override
+            public void onRefresh() {
+                notifyRefreshCompleted();
+            }
+
+            @Override
+            public void onLoadMore() {
+                notifyLoadMoreCompleted();
+            }
+        });
+    }
+
+    @Override
+    protected ItemHolder onCreateCustomViewHolder(ViewGroup parent, int viewType) {
+        View view = new View(parent.getContext());
+        view.setLayoutParams(new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ITEM_HEIGHT));
+        return new ItemHolder(view);
+    }
+
+    @Override
+    protected void onBindCustomViewHolder(ItemHolder holder, int position) {
+        mBindCount++;
+    }
+
+    @Override
+    protected int getCustomItemViewType(int position) {
+        return TYPE_ITEM;
+    }
+
+    @Override
+    protected int getCustomItemCount() {
+        return mCount;
+    }
+
+    static class ItemHolder extends RecyclerView.ViewHolder {
+
+        ItemHolder(View itemView) {
+            super(itemView);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package o.o.benchmark;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+import org.robolectric.RuntimeEnvironment;
+
+/**
+ * @author https://github.com/timelessx
+ *         创建并摆放好一个1080x1920的RecyclerView
+ */
+final class Benchmarks {
+
+    static final int WIDTH = 1080;
+    static final int HEIGHT = 1920;
+
+    private Benchmarks() {
+    }
+
+    static RecyclerView createRecyclerView(RecyclerView.LayoutManager layoutManager, RecyclerView.Adapter adapter) {
+        RecyclerView recyclerView = new RecyclerView(RuntimeEnvironment.application);
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.setAdapter(adapter);
+        layout(recyclerView);
+        return recyclerView;
+    }
+
+    static void layout(RecyclerView recyclerView) {
+        recyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, WIDTH, HEIGHT);
+    }
+}
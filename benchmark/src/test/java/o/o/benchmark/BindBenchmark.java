@@ -0,0 +1,59 @@
+package o.o.benchmark;
+
+import android.support.v7.widget.GridLayoutManager;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.StaggeredGridLayoutManager;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+/**
+ * @author https://github.com/timelessx
+ *         不同LayoutManager和数据量下滑动时的绑定吞吐，每次操作向下滑动一个item的高度
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class BindBenchmark {
+
+    private static final int[] SIZES = {10000, 100000, 1000000};
+    private static final int SCROLLS = 1000;
+
+    @Test
+    public void linear() {
+        for (int size : SIZES)
+            scroll("linear", size, new LinearLayoutManager(RuntimeEnvironment.application));
+    }
+
+    @Test
+    public void grid() {
+        for (int size : SIZES)
+            scroll("grid", size, new GridLayoutManager(RuntimeEnvironment.application, 2));
+    }
+
+    @Test
+    public void staggeredGrid() {
+        for (int size : SIZES)
+            scroll("staggered", size, new StaggeredGridLayoutManager(2, StaggeredGridLayoutManager.VERTICAL));
+    }
+
+    private void scroll(String name, final int size, RecyclerView.LayoutManager layoutManager) {
+        final BenchAdapter adapter = new BenchAdapter(size);
+        final RecyclerView recyclerView = Benchmarks.createRecyclerView(layoutManager, adapter);
+        adapter.mBindCount = 0;
+        Bench.measure("bind", name + " items=" + size, SCROLLS, new Bench.Op() {
+            @Override
+            public void run(int ops) {
+                recyclerView.scrollToPosition(size / 2);    //每轮从中间开始，不会滑到末尾触发加载更多
+                Benchmarks.layout(recyclerView);
+                for (int i = 0; i < ops; i++)
+                    recyclerView.scrollBy(0, BenchAdapter.ITEM_HEIGHT);
+            }
+        });
+        Assert.assertTrue(adapter.mBindCount > 0);
+    }
+}
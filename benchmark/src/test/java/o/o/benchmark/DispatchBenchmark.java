@@ -0,0 +1,68 @@
+package o.o.benchmark;
+
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+/**
+ * @author https://github.com/timelessx
+ *         getItemViewType/getItemCount/onBindViewHolder每次调用的开销，这几个方法在滑动时每个item都会调用
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class DispatchBenchmark {
+
+    private static final int ITEMS = 100000;
+    private static final int OPS = 1000000;
+
+    private BenchAdapter mAdapter;
+    private RecyclerView mRecyclerView;
+    private int mSink;
+
+    @Before
+    public void setUp() {
+        mAdapter = new BenchAdapter(ITEMS);
+        mRecyclerView = Benchmarks.createRecyclerView(new LinearLayoutManager(RuntimeEnvironment.application), mAdapter);
+    }
+
+    @Test
+    public void getItemViewType() {
+        Bench.measure("getItemViewType", "items=" + ITEMS, OPS, new Bench.Op() {
+            @Override
+            public void run(int ops) {
+                int count = mAdapter.getItemCount();
+                for (int i = 0; i < ops; i++)
+                    mSink += mAdapter.getItemViewType(i % count);
+            }
+        });
+    }
+
+    @Test
+    public void getItemCount() {
+        Bench.measure("getItemCount", "items=" + ITEMS, OPS, new Bench.Op() {
+            @Override
+            public void run(int ops) {
+                for (int i = 0; i < ops; i++)
+                    mSink += mAdapter.getItemCount();
+            }
+        });
+    }
+
+    @Test
+    public void onBindViewHolder() {
+        final RecyclerView.ViewHolder holder = mAdapter.onCreateViewHolder(mRecyclerView, BenchAdapter.TYPE_ITEM);
+        Bench.measure("onBindViewHolder", "items=" + ITEMS, OPS, new Bench.Op() {
+            @Override
+            public void run(int ops) {
+                for (int i = 0; i < ops; i++)   //跳过Header，停在末尾之前，避免触发加载更多
+                    mAdapter.onBindViewHolder(holder, 1 + i % (ITEMS / 2));
+            }
+        });
+    }
+}
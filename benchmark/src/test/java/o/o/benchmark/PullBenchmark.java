@@ -0,0 +1,69 @@
+package o.o.benchmark;
+
+import android.os.SystemClock;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.MotionEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+/**
+ * @author https://github.com/timelessx
+ *         一次完整下拉(按下、移动、松手、收起动画)的耗时和分配，下拉距离不超过刷新高度；
+ *         MotionEvent提前创建好，不计入分配
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class PullBenchmark {
+
+    private static final int MOVES = 20;
+    private static final int STEP = 10;
+    private static final int CYCLES = 200;
+
+    private BenchAdapter mAdapter;
+    private RecyclerView mRecyclerView;
+    private MotionEvent[] mEvents;
+
+    @Before
+    public void setUp() {
+        mAdapter = new BenchAdapter(1000);
+        mRecyclerView = Benchmarks.createRecyclerView(new LinearLayoutManager(RuntimeEnvironment.application), mAdapter);
+        long time = SystemClock.uptimeMillis();
+        mEvents = new MotionEvent[MOVES + 2];
+        mEvents[0] = MotionEvent.obtain(time, time, MotionEvent.ACTION_DOWN, 100, 100, 0);
+        for (int i = 1; i <= MOVES; i++)
+            mEvents[i] = MotionEvent.obtain(time, time + i * 16, MotionEvent.ACTION_MOVE, 100, 100 + i * STEP, 0);
+        mEvents[MOVES + 1] = MotionEvent.obtain(time, time + (MOVES + 1) * 16, MotionEvent.ACTION_UP, 100, 100 + MOVES * STEP, 0);
+    }
+
+    @Test
+    public void pullCycle() {
+        run("pull", false);
+    }
+
+    @Test
+    public void pullCycleLayoutFree() {
+        mAdapter.setLayoutFreePull(true);
+        run("pull", true);
+    }
+
+    private void run(String name, boolean layoutFree) {
+        Bench.measure(name, "layoutFree=" + layoutFree, CYCLES, new Bench.Op() {
+            @Override
+            public void run(int ops) {
+                for (int i = 0; i < ops; i++) {
+                    for (MotionEvent event : mEvents)
+                        mRecyclerView.dispatchTouchEvent(event);
+                    Robolectric.getForegroundThreadScheduler().advanceBy(1000);  //跑完收起动画
+                    Benchmarks.layout(mRecyclerView);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,46 @@
+package o.o;
+
+import java.util.List;
+
+/**
+ * @author https://github.com/timelessx
+ *         {@link SimpleListAdapter#setDataLoader(DataLoader)} 使用的数据加载接口，
+ *         在后台线程调用，返回的数据由Adapter回到主线程后一次性插入，并自动更新Header/Footer的状态
+ */
+public interface DataLoader<D> {
+
+    /**
+     * 在后台线程同步加载一页数据，抛出异常视为加载失败；
+     * 超时或被取消后线程会被中断，{@link LoadRequest#isCancelled()} 也会返回true
+     */
+    List<D> load(LoadRequest request) throws Exception;
+
+    class LoadRequest {
+        public final boolean refresh;
+        /**
+         * 加载更多时为当前已有的数据条数，刷新时为0
+         */
+        public final int offset;
+        /**
+         * {@link SimpleRefreshAdapter#setPageSizeController(PageSizeController)} 建议的条数，没有设置时为0，由loader自己决定
+         */
+        public final int loadSize;
+        final int token;
+        private volatile boolean cancelled;
+
+        LoadRequest(boolean refresh, int offset, int loadSize, int token) {
+            this.refresh = refresh;
+            this.offset = offset;
+            this.loadSize = loadSize;
+            this.token = token;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+    }
+}
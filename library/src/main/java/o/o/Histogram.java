@@ -0,0 +1,73 @@
+package o.o;
+
+/**
+ * @author https://github.com/timelessx
+ *         按2的幂分桶的直方图，第i个桶记录[2^(i-1), 2^i)的值，记录时不分配对象，
+ *         百分位是桶的上界，只能作为近似值；不是线程安全的
+ */
+public class Histogram {
+
+    private static final int BUCKETS = 64;
+
+    private final long[] mBuckets = new long[BUCKETS];
+    private long mCount;
+    private long mSum;
+    private long mMax;
+
+    public void record(long value) {
+        if (value < 0)
+            value = 0;
+        mBuckets[BUCKETS - Long.numberOfLeadingZeros(value)]++;
+        mCount++;
+        mSum += value;
+        if (value > mMax)
+            mMax = value;
+    }
+
+    public long getCount() {
+        return mCount;
+    }
+
+    public long getSum() {
+        return mSum;
+    }
+
+    public long getMax() {
+        return mMax;
+    }
+
+    public long getMean() {
+        return mCount == 0 ? 0 : mSum / mCount;
+    }
+
+    /**
+     * @param percentile 0~100
+     */
+    public long getPercentile(float percentile) {
+        long target = (long) Math.ceil(mCount * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += mBuckets[i];
+            if (seen >= target && seen > 0)
+                return i == 0 ? 0 : Math.min(mMax, (1L << i) - 1);
+        }
+        return mMax;
+    }
+
+    /**
+     * 第index个桶中的数量，用于导出完整分布
+     */
+    public long getBucketCount(int index) {
+        return mBuckets[index];
+    }
+
+    public int getBucketSize() {
+        return BUCKETS;
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++)
+            mBuckets[i] = 0;
+        mCount = mSum = mMax = 0;
+    }
+}
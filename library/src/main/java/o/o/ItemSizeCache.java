@@ -0,0 +1,93 @@
+package o.o;
+
+import android.support.v4.util.LongSparseArray;
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseIntArray;
+
+/**
+ * @author https://github.com/timelessx
+ *         保存item的高度，开启stable ids时以id为key，否则以position为key；
+ *         作为AdapterDataObserver注册到Adapter上，插入/删除时移动position，整体刷新时全部清空
+ */
+class ItemSizeCache extends RecyclerView.AdapterDataObserver {
+
+    private SparseIntArray mPositionSizes = new SparseIntArray();
+    private final LongSparseArray<Integer> mIdSizes = new LongSparseArray<>();
+    private final RecyclerView.Adapter mAdapter;
+
+    ItemSizeCache(RecyclerView.Adapter adapter) {
+        mAdapter = adapter;
+    }
+
+    int get(int position, long id) {
+        if (mAdapter.hasStableIds() && id != RecyclerView.NO_ID) {
+            Integer size = mIdSizes.get(id);
+            return size == null ? -1 : size;
+        }
+        return mPositionSizes.get(position, -1);
+    }
+
+    void put(int position, long id, int size) {
+        if (mAdapter.hasStableIds() && id != RecyclerView.NO_ID)
+            mIdSizes.put(id, size);
+        else if (position != RecyclerView.NO_POSITION)
+            mPositionSizes.put(position, size);
+    }
+
+    void clear() {
+        mPositionSizes.clear();
+        mIdSizes.clear();
+    }
+
+    @Override
+    public void onChanged() {
+        clear();
+    }
+
+    @Override
+    public void onItemRangeChanged(int positionStart, int itemCount) {
+        for (int i = positionStart; i < positionStart + itemCount; i++)
+            mPositionSizes.delete(i);
+        //id对应的内容变了也需要重新测量
+        for (int i = positionStart; i < positionStart + itemCount && mAdapter.hasStableIds(); i++)
+            mIdSizes.delete(mAdapter.getItemId(i));
+    }
+
+    @Override
+    public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+        if (payload == null)
+            onItemRangeChanged(positionStart, itemCount);
+    }
+
+    @Override
+    public void onItemRangeInserted(int positionStart, int itemCount) {
+        shift(positionStart, itemCount);
+    }
+
+    @Override
+    public void onItemRangeRemoved(int positionStart, int itemCount) {
+        for (int i = positionStart; i < positionStart + itemCount; i++)
+            mPositionSizes.delete(i);
+        shift(positionStart + itemCount, -itemCount);
+    }
+
+    @Override
+    public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+        mPositionSizes.clear();
+    }
+
+    /**
+     * position >= start的key整体移动offset
+     */
+    private void shift(int start, int offset) {
+        int size = mPositionSizes.size();
+        if (size == 0 || mPositionSizes.keyAt(size - 1) < start)
+            return;
+        SparseIntArray shifted = new SparseIntArray(size);
+        for (int i = 0; i < size; i++) {
+            int key = mPositionSizes.keyAt(i);
+            shifted.append(key >= start ? key + offset : key, mPositionSizes.valueAt(i));
+        }
+        mPositionSizes = shifted;
+    }
+}
@@ -0,0 +1,40 @@
+package o.o;
+
+/**
+ * @author https://github.com/timelessx
+ *         {@link SimpleRefreshAdapter#setMetricsListener(MetricsListener)} 的性能数据回调，都在主线程调用；
+ *         没有设置时不会计时，可以直接使用 {@link RefreshMetrics} 汇总成直方图
+ */
+public interface MetricsListener {
+
+    /**
+     * 从开始下拉到松手的时间
+     *
+     * @param refresh 松手后是否触发了刷新
+     */
+    void onPullReleased(long durationMillis, boolean refresh);
+
+    /**
+     * 从开始刷新到 {@link SimpleRefreshAdapter#notifyRefreshCompleted()} 或
+     * {@link SimpleRefreshAdapter#notifyNetError()} 的时间
+     */
+    void onRefreshFinished(long latencyMillis, boolean success);
+
+    /**
+     * 从 {@link SimpleRefreshAdapter.OnRefreshListener#onLoadMore()} 到
+     * {@link SimpleRefreshAdapter#notifyLoadMoreCompleted()} 或 {@link SimpleRefreshAdapter#notifyNetError()} 的时间
+     */
+    void onLoadMoreFinished(long latencyMillis, boolean success);
+
+    void onViewHolderCreated(int viewType, long nanos);
+
+    /**
+     * 只统计完整绑定，带payload的局部刷新不计入
+     */
+    void onViewHolderBound(int viewType, long nanos);
+
+    /**
+     * 一次下拉松手或Header的一次回弹/收起动画结束，按相邻两帧的间隔估算丢掉的帧数
+     */
+    void onHeaderAnimationFrames(int frames, int droppedFrames);
+}
@@ -0,0 +1,57 @@
+package o.o;
+
+/**
+ * @author https://github.com/timelessx
+ *         根据最近的加载耗时、滑动时每毫秒消耗的item数和一屏能显示的item数(列数×可见行数)估算下一页的大小：
+ *         加载更多时一页要够在下一次加载返回之前滑动，刷新时只要填满一屏多一点，尽快显示出来
+ */
+public class PageSizeController {
+
+    private static final float ALPHA = 0.3f;    //新样本的权重
+
+    private final int mMinSize;
+    private final int mMaxSize;
+    private float mLatency;     //ms
+    private float mRate;        //item/ms
+    private int mViewport;
+
+    public PageSizeController(int minSize, int maxSize) {
+        if (minSize <= 0 || maxSize < minSize)
+            throw new IllegalArgumentException("minSize: " + minSize + ", maxSize: " + maxSize);
+        mMinSize = minSize;
+        mMaxSize = maxSize;
+    }
+
+    /**
+     * 一次加载成功完成
+     */
+    public void onLoadFinished(long latencyMillis) {
+        mLatency = mLatency == 0 ? latencyMillis : mLatency + ALPHA * (latencyMillis - mLatency);
+    }
+
+    /**
+     * 触发加载时的滑动速度，0表示没有在滑动
+     */
+    public void onScrollRate(float itemsPerMilli) {
+        if (itemsPerMilli > 0)
+            mRate = mRate == 0 ? itemsPerMilli : mRate + ALPHA * (itemsPerMilli - mRate);
+    }
+
+    /**
+     * 一屏能同时显示的item数
+     */
+    public void setViewportCapacity(int items) {
+        if (items > 0)
+            mViewport = items;
+    }
+
+    public int getPageSize(boolean refresh) {
+        int viewport = mViewport > 0 ? mViewport : mMinSize;
+        int size;
+        if (refresh)
+            size = viewport + viewport / 2;
+        else    //加载期间会被滑过的数量，再多留一屏
+            size = (int) (mRate * mLatency) * 2 + viewport;
+        return Math.max(mMinSize, Math.min(mMaxSize, size));
+    }
+}
@@ -0,0 +1,200 @@
+package o.o;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @author https://github.com/timelessx
+ *         按页保存数据的List，配合 {@link SimpleListAdapter#setData(List)} 用于无限加载更多的列表
+ *         <p>已加载的数据超过 {@link #setMaxLoadedItems(int)} 时，离最近访问位置最远的页会被清掉，
+ *         只保留占位，{@link #size()} 保持不变；之后再访问到这一页时 {@link #get(int)} 返回null，
+ *         并通过 {@link PageLoader} 请求重新加载，加载完成后调用 {@link #setPage(int, List, int)} 填回；
+ *         {@link #clear()}(刷新)之后，之前请求的页再填回来会被忽略</p>
+ *         <p>最后一页是追加数据的位置，不会被清掉；只支持在末尾追加，在头部插入会抛出 {@link UnsupportedOperationException}</p>
+ */
+public class PagedStorage<D> extends AbstractList<D> {
+
+    private final int mPageSize;
+    private final ArrayList<List<D>> mPages = new ArrayList<>();    //null表示已被清掉
+    private final BitSet mRequested = new BitSet();
+    private int mSize;
+    private int mLoadedPages;
+    private int mMaxLoadedPages = Integer.MAX_VALUE;
+    private int mLastAccessPage;
+    private int mGeneration;    //每次clear加一，之前请求的页不再有效
+    private PageLoader mLoader;
+    private Callback mCallback;
+
+    public PagedStorage(int pageSize) {
+        if (pageSize <= 0)
+            throw new IllegalArgumentException("pageSize must be positive: " + pageSize);
+        mPageSize = pageSize;
+    }
+
+    public void setPageLoader(PageLoader loader) {
+        mLoader = loader;
+    }
+
+    /**
+     * 内存中最多保留的数据条数，按页向上取整，至少保留最近访问的页和最后一页
+     */
+    public void setMaxLoadedItems(int maxItems) {
+        mMaxLoadedPages = Math.max((maxItems + mPageSize - 1) / mPageSize, 2);
+        trim();
+    }
+
+    public int getPageSize() {
+        return mPageSize;
+    }
+
+    public int getPageCount() {
+        return mPages.size();
+    }
+
+    public boolean isPageLoaded(int page) {
+        return mPages.get(page) != null;
+    }
+
+    void setCallback(Callback callback) {
+        mCallback = callback;
+    }
+
+    /**
+     * 返回null表示该位置所在的页已被清掉，正在重新加载
+     */
+    @Override
+    public D get(int index) {
+        if (index < 0 || index >= mSize)
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + mSize);
+        int page = index / mPageSize;
+        mLastAccessPage = page;
+        List<D> items = mPages.get(page);
+        //提前把相邻的页也加载回来
+        if (page > 0)
+            ensurePage(page - 1);
+        if (page < mPages.size() - 1)
+            ensurePage(page + 1);
+        if (items == null) {
+            ensurePage(page);
+            return null;
+        }
+        return items.get(index % mPageSize);
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    @Override
+    public boolean add(D item) {
+        List<D> last = mPages.isEmpty() ? null : mPages.get(mPages.size() - 1);
+        if (last == null || last.size() == mPageSize) {
+            last = new ArrayList<>(mPageSize);
+            mPages.add(last);
+            mLoadedPages++;
+        }
+        last.add(item);
+        mSize++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends D> items) {
+        for (D item : items)
+            add(item);
+        mLastAccessPage = mPages.size() - 1;
+        trim();
+        return !items.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        mPages.clear();
+        mRequested.clear();
+        mSize = 0;
+        mLoadedPages = 0;
+        mLastAccessPage = 0;
+        mGeneration++;
+        modCount++;
+    }
+
+    /**
+     * 重新加载完成后在主线程调用，items的数量必须和原来这一页一致
+     *
+     * @param generation {@link PageLoader#onLoadPage(PagedStorage, int, int, int, int)} 传入的值，
+     *                   请求之后数据已经被清空过或者这一页已经不存在时直接忽略
+     */
+    public void setPage(int page, List<D> items, int generation) {
+        if (generation != mGeneration || page < 0 || page >= mPages.size())
+            return;
+        int count = getPageItemCount(page);
+        if (items.size() != count)
+            throw new IllegalArgumentException("page " + page + " expects " + count + " items, got " + items.size());
+        mRequested.clear(page);
+        if (mPages.get(page) == null)
+            mLoadedPages++;
+        mPages.set(page, items);
+        trim();
+        if (mCallback != null)
+            mCallback.onPageLoaded(page * mPageSize, count);
+    }
+
+    /**
+     * 清掉除最近访问页及其相邻页和最后一页之外的所有页
+     */
+    public void trimToVisible() {
+        int max = mMaxLoadedPages;
+        mMaxLoadedPages = 1;
+        trim();
+        mMaxLoadedPages = max;
+    }
+
+    private int getPageItemCount(int page) {
+        return page == mPages.size() - 1 ? mSize - page * mPageSize : mPageSize;
+    }
+
+    private void ensurePage(int page) {
+        if (mPages.get(page) != null || mRequested.get(page) || mLoader == null)
+            return;
+        mRequested.set(page);
+        mLoader.onLoadPage(this, page, page * mPageSize, getPageItemCount(page), mGeneration);
+    }
+
+    private void trim() {
+        int last = mPages.size() - 1;
+        while (mLoadedPages > mMaxLoadedPages) {
+            int farthest = -1;
+            int distance = 1;   //相邻的页不清掉
+            for (int i = 0; i < last; i++) {
+                if (mPages.get(i) != null && Math.abs(i - mLastAccessPage) > distance) {
+                    farthest = i;
+                    distance = Math.abs(i - mLastAccessPage);
+                }
+            }
+            if (farthest < 0)
+                return;
+            mPages.set(farthest, null);
+            mLoadedPages--;
+        }
+    }
+
+    public interface PageLoader {
+
+        /**
+         * 请求重新加载被清掉的一页，不要在这里同步调用 {@link #setPage(int, List, int)}
+         *
+         * @param generation 加载完成后原样传给setPage
+         */
+        void onLoadPage(PagedStorage<?> storage, int page, int start, int count, int generation);
+    }
+
+    interface Callback {
+
+        void onPageLoaded(int start, int count);
+    }
+}
@@ -0,0 +1,57 @@
+package o.o;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.LayoutInflater;
+import android.widget.FrameLayout;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+
+public class RefreshFooter extends FrameLayout {
+    public static final String LOADING = "正在加载...";
+    public static final String ERROR = "加载失败，点击重试";
+    public static final int STATE_LOADING = 0;
+    public static final int STATE_ERROR = 1;
+
+    private ProgressBar mProgressBar;
+    private TextView tv_status;
+    public int mState = STATE_LOADING;
+
+    public RefreshFooter(Context context) {
+        this(context, null);
+    }
+
+    public RefreshFooter(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public RefreshFooter(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        initView();
+    }
+
+    private void initView() {
+        LayoutInflater.from(getContext()).inflate(R.layout.footer, this);
+        setLayoutParams(new LayoutParams(-1, -2));
+        mProgressBar = (ProgressBar) findViewById(R.id.progressBar);
+        tv_status = (TextView) findViewById(R.id.tv_status);
+    }
+
+    public void setState(int state) {
+        if (state == mState)
+            return;
+        switch (state) {
+            case STATE_LOADING:
+                mProgressBar.setVisibility(VISIBLE);
+                tv_status.setText(LOADING);
+                break;
+            case STATE_ERROR:
+                mProgressBar.setVisibility(GONE);
+                tv_status.setText(ERROR);
+                break;
+            default:
+                break;
+        }
+        mState = state;
+    }
+}
@@ -1,19 +1,31 @@
 package o.o;
 
-import android.animation.ObjectAnimator;
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ValueAnimator;
+import android.annotation.TargetApi;
 import android.content.Context;
+import android.os.Build;
 import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.v7.widget.RecyclerView;
 import android.util.AttributeSet;
 import android.util.TypedValue;
+import android.view.Choreographer;
 import android.view.LayoutInflater;
 import android.widget.FrameLayout;
 import android.widget.ImageView;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.Calendar;
 
+/**
+ * 状态切换、动画、定时重置都复用初始化时创建好的对象，一次完整的下拉/刷新/完成过程不会再分配对象。
+ * 高度和箭头动画都用0~1的ValueAnimator驱动，在回调里按比例计算，避免反射查找属性和装箱；
+ * {@link #releaseAnimators()} 之后下次需要时才重新创建
+ */
 public class RefreshHeader extends FrameLayout {
     public static final String NORMAL = "下拉刷新";
     public static final String RELEASE_TO_REFRESH = "释放立即刷新";
@@ -24,14 +36,32 @@ public class RefreshHeader extends FrameLayout {
     public static final int STATE_RELEASE_TO_REFRESH = 1;
     public static final int STATE_REFRESHING = 2;
     public static final int STATE_COMPLETED = 3;
+    private static final long FRAME_NANOS = 16666667;
 
     private int height;
     private ImageView iv_arrow;
     private ProgressBar mProgressBar;
     private TextView tv_status;
     private TextView tv_time;
-    private ObjectAnimator rotation_up, rotation_down;
     public int mState = STATE_NORMAL;
+    private boolean mLayoutFree;
+    private boolean mManualLayout;
+    private int mLaidOutHeight = 1;    //最近一次真正layout时的高度
+
+    private final Callback mCallback = new Callback();
+    private final Calendar mCalendar = Calendar.getInstance();
+    private ValueAnimator mHeightAnimator, mArrowAnimator;
+    private int mHeightFrom, mHeightTo;
+    private float mArrowFrom, mArrowTo;
+    private boolean mBouncing;
+    private Handler mHandler;
+    private char[] mTimeText;
+    private OnStateChangeListener mOnStateChangeListener;
+    private MetricsListener mMetrics;
+    private long mPullStartTime;
+    private long mLastFrameTime;
+    private int mFrames, mDroppedFrames;
+    private PullFrameCounter mPullFrameCounter;
 
     public RefreshHeader(Context context) {
         this(context, null);
@@ -55,30 +85,57 @@ public class RefreshHeader extends FrameLayout {
         tv_status = (TextView) findViewById(R.id.tv_status);
         tv_time = (TextView) findViewById(R.id.tv_time);
         mProgressBar = (ProgressBar) findViewById(R.id.progressBar);
-        rotation_up = ObjectAnimator.ofFloat(iv_arrow, "Rotation", 0, 180).setDuration(150);
-        rotation_down = ObjectAnimator.ofFloat(iv_arrow, "Rotation", 180, 0).setDuration(150);
         tv_time.setText(LAST_REFRESH_TIME + "Long Long ago");
+
+        ensureAnimators();
+        mHandler = new Handler(Looper.getMainLooper());     //允许在后台线程创建
+        mTimeText = new char[LAST_REFRESH_TIME.length() + 5];
+        LAST_REFRESH_TIME.getChars(0, LAST_REFRESH_TIME.length(), mTimeText, 0);
+    }
+
+    /**
+     * 拖动时不再修改高度后requestLayout，而是直接平移RecyclerView的子View并只摆放Header自身，
+     * 停在刷新高度或收起时才真正layout一次
+     */
+    public void setLayoutFree(boolean layoutFree) {
+        mLayoutFree = layoutFree;
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        super.onLayout(changed, left, top, right, bottom);
+        if (!mManualLayout)
+            mLaidOutHeight = bottom - top;
+    }
+
+    public void setOnStateChangeListener(OnStateChangeListener listener) {
+        mOnStateChangeListener = listener;
+    }
+
+    /**
+     * null时不计时
+     */
+    public void setMetricsListener(MetricsListener listener) {
+        mMetrics = listener;
+        mPullStartTime = 0;
     }
 
     public void setState(int state) {
         if (state == mState)
             return;
+        int oldState = mState;
         switch (state) {
             case STATE_NORMAL:
                 iv_arrow.setVisibility(VISIBLE);
                 mProgressBar.setVisibility(INVISIBLE);
                 tv_time.setVisibility(VISIBLE);
                 //iv_arrow.setRotation(0);
-                if (rotation_down.isRunning())
-                    rotation_down.cancel();
-                rotation_down.start();
+                rotateArrow(0);
                 tv_status.setText(NORMAL);
                 break;
             case STATE_RELEASE_TO_REFRESH:
                 //iv_arrow.setRotation(180);
-                if (rotation_up.isRunning())
-                    rotation_up.cancel();
-                rotation_up.start();
+                rotateArrow(180);
                 tv_status.setText(RELEASE_TO_REFRESH);
                 break;
             case STATE_REFRESHING:
@@ -96,32 +153,70 @@ public class RefreshHeader extends FrameLayout {
                 break;
         }
         mState = state;
+        if (mOnStateChangeListener != null)
+            mOnStateChangeListener.onStateChanged(this, oldState, state);
     }
 
     public void setRefreshing(boolean refreshing) {
         if (refreshing) {
-            ObjectAnimator.ofInt(this, "VisibleHeight", 0, height).setDuration(500).start();
+            smoothScrollTo(height, 500);
             setState(STATE_REFRESHING);
         } else
             reset();
     }
 
     public void refreshCompleted() {
-        tv_time.setText(LAST_REFRESH_TIME + new SimpleDateFormat("H:mm").format(new Date()));
+        mCalendar.setTimeInMillis(System.currentTimeMillis());
+        int hour = mCalendar.get(Calendar.HOUR_OF_DAY);
+        int minute = mCalendar.get(Calendar.MINUTE);
+        int i = LAST_REFRESH_TIME.length();     //H:mm
+        if (hour >= 10)
+            mTimeText[i++] = (char) ('0' + hour / 10);
+        mTimeText[i++] = (char) ('0' + hour % 10);
+        mTimeText[i++] = ':';
+        mTimeText[i++] = (char) ('0' + minute / 10);
+        mTimeText[i++] = (char) ('0' + minute % 10);
+        tv_time.setText(mTimeText, 0, i);
         setState(STATE_COMPLETED);
         reset();
     }
 
+    /**
+     * 超过这个高度松手就刷新
+     */
+    public int getRefreshHeight() {
+        return height;
+    }
+
     public int getVisibleHeight() {
         return getLayoutParams().height;
     }
 
     public void setVisibleHeight(int height) {
-        getLayoutParams().height = height < 0 ? 1 : height;
-        requestLayout();
+        if (height < 1)
+            height = 1;
+        getLayoutParams().height = height;
+        //只有比上次layout时更高才能平移，否则底部会露出没有填充的空白
+        if (mLayoutFree && height >= mLaidOutHeight && getParent() instanceof RecyclerView && !isLayoutRequested()) {
+            int top = getTop();
+            ((RecyclerView) getParent()).offsetChildrenVertical(height - getHeight());
+            mManualLayout = true;
+            layout(getLeft(), top, getRight(), top + height);
+            mManualLayout = false;
+        } else
+            requestLayout();
     }
 
     public void onMove(int distance) {
+        if (mMetrics != null && mPullStartTime == 0) {
+            mPullStartTime = SystemClock.uptimeMillis();
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {  //手指拖动期间没有动画回调，按帧统计
+                if (mPullFrameCounter == null)
+                    mPullFrameCounter = new PullFrameCounter();
+                reportFrames();
+                mPullFrameCounter.start();
+            }
+        }
         //Log.e("onMove", "distance: " + distance);
         //setVisibleHeight(distance >> 1);
         setVisibleHeight(distance);
@@ -130,25 +225,161 @@ public class RefreshHeader extends FrameLayout {
 
     public boolean onRelease() {
         boolean flag = getVisibleHeight() > height;
+        if (mMetrics != null && mPullStartTime != 0) {
+            mMetrics.onPullReleased(SystemClock.uptimeMillis() - mPullStartTime, flag);
+            mPullStartTime = 0;
+            if (mPullFrameCounter != null)
+                mPullFrameCounter.stop();
+            reportFrames();
+        }
         if (flag) {
             setState(STATE_REFRESHING);
-            smoothScrollTo(height);
+            smoothScrollTo(height, 300);
         } else
-            smoothScrollTo(1);
+            smoothScrollTo(1, 300);
         return flag;
     }
 
     public void reset() {
-        smoothScrollTo(1);
-        new Handler().postDelayed(new Runnable() {
-            public void run() {
-                setState(STATE_NORMAL);
+        smoothScrollTo(1, 300);
+        mHandler.removeCallbacks(mCallback);
+        mHandler.postDelayed(mCallback, 600);
+    }
+
+    /**
+     * 惯性滑动到顶时把剩余速度交给Header，弹出一段后收回，不会触发刷新
+     */
+    public void bounce(int distance) {
+        if (mState != STATE_NORMAL || mHeightAnimator != null && mHeightAnimator.isRunning())
+            return;
+        smoothScrollTo(Math.min(distance, height >> 1), 150);
+        mBouncing = true;
+    }
+
+    private void smoothScrollTo(int height, long duration) {
+        mBouncing = false;
+        ensureAnimators();
+        mHeightAnimator.cancel();
+        mHeightFrom = getVisibleHeight();
+        mHeightTo = height;
+        mHeightAnimator.setDuration(duration);
+        mHeightAnimator.start();
+    }
+
+    private void rotateArrow(float rotation) {
+        ensureAnimators();
+        mArrowAnimator.cancel();
+        mArrowFrom = iv_arrow.getRotation();
+        mArrowTo = rotation;
+        mArrowAnimator.start();
+    }
+
+    /**
+     * 内存不足时释放没有在运行的动画，下次需要时重新创建
+     */
+    public void releaseAnimators() {
+        if (mHeightAnimator != null && !mHeightAnimator.isRunning()) {
+            mHeightAnimator.removeAllListeners();
+            mHeightAnimator.removeAllUpdateListeners();
+            mHeightAnimator = null;
+        }
+        if (mArrowAnimator != null && !mArrowAnimator.isRunning()) {
+            mArrowAnimator.removeAllUpdateListeners();
+            mArrowAnimator = null;
+        }
+    }
+
+    private void ensureAnimators() {
+        if (mHeightAnimator == null) {
+            mHeightAnimator = ValueAnimator.ofFloat(0, 1);
+            mHeightAnimator.addUpdateListener(mCallback);
+            mHeightAnimator.addListener(mCallback);
+        }
+        if (mArrowAnimator == null) {
+            mArrowAnimator = ValueAnimator.ofFloat(0, 1).setDuration(150);
+            mArrowAnimator.addUpdateListener(mCallback);
+        }
+    }
+
+    /**
+     * 两次动画回调或下拉时两帧的间隔超过1.5帧就算丢帧
+     */
+    private void countFrame(long now) {
+        if (mLastFrameTime != 0) {
+            long frames = (now - mLastFrameTime + FRAME_NANOS / 2) / FRAME_NANOS;
+            if (frames > 1)
+                mDroppedFrames += frames - 1;
+        }
+        mLastFrameTime = now;
+        mFrames++;
+    }
+
+    private void reportFrames() {
+        if (mFrames > 0) {
+            if (mMetrics != null)
+                mMetrics.onHeaderAnimationFrames(mFrames, mDroppedFrames);
+            mFrames = mDroppedFrames = 0;
+        }
+        mLastFrameTime = 0;
+    }
+
+    public interface OnStateChangeListener {
+
+        void onStateChanged(RefreshHeader header, int oldState, int newState);
+    }
+
+    private class Callback extends AnimatorListenerAdapter implements ValueAnimator.AnimatorUpdateListener, Runnable {
+
+        @Override
+        public void onAnimationUpdate(ValueAnimator animation) {
+            float fraction = animation.getAnimatedFraction();
+            if (mMetrics != null && animation == mHeightAnimator)
+                countFrame(System.nanoTime());
+            if (animation == mHeightAnimator)
+                setVisibleHeight(mHeightFrom + (int) ((mHeightTo - mHeightFrom) * fraction));
+            else
+                iv_arrow.setRotation(mArrowFrom + (mArrowTo - mArrowFrom) * fraction);
+        }
+
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            reportFrames();
+            if (mBouncing) {
+                smoothScrollTo(1, 300);
+                return;
             }
-        }, 600);
+            if (mLayoutFree)
+                requestLayout();
+        }
+
+        @Override
+        public void run() {     //reset()之后延时回到初始状态
+            setState(STATE_NORMAL);
+        }
     }
 
-    private void smoothScrollTo(int height) {
-        ObjectAnimator.ofInt(this, "VisibleHeight", getVisibleHeight(), height).setDuration(300).start();
+    /**
+     * 从开始下拉到松手每帧计数一次
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private class PullFrameCounter implements Choreographer.FrameCallback {
+
+        void start() {
+            Choreographer.getInstance().removeFrameCallback(this);
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        void stop() {
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (mMetrics == null || mPullStartTime == 0)
+                return;
+            countFrame(frameTimeNanos);
+            Choreographer.getInstance().postFrameCallback(this);
+        }
     }
 
 }
\ No newline at end of file
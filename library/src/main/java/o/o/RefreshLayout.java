@@ -0,0 +1,202 @@
+package o.o;
+
+import android.content.Context;
+import android.hardware.SensorManager;
+import android.os.SystemClock;
+import android.support.v4.view.NestedScrollingChild;
+import android.support.v4.view.NestedScrollingChildHelper;
+import android.support.v4.view.NestedScrollingParent;
+import android.support.v4.view.NestedScrollingParentHelper;
+import android.support.v4.view.ViewCompat;
+import android.support.v7.widget.RecyclerView;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewConfiguration;
+import android.widget.FrameLayout;
+
+/**
+ * @author https://github.com/timelessx
+ *         包裹RecyclerView的刷新容器，通过嵌套滑动接管下拉：
+ *         <ol>
+ *         <li>RecyclerView到顶后未消费的向下位移交给Header</li>
+ *         <li>Header拉开时向上的位移先用来收回Header</li>
+ *         <li>惯性滑动到顶时按fling的初速度和已经减速的时间估算剩余速度，交给Header弹一下</li>
+ *         </ol>
+ *         RecyclerView的普通滑动不再经过OnTouchListener，{@link SimpleRefreshAdapter} 检测到父View是本类时会自动接入；
+ *         本身也是NestedScrollingChild，Header没有消费的位移和fling继续交给外层(例如CoordinatorLayout中的AppBarLayout)
+ */
+public class RefreshLayout extends FrameLayout implements NestedScrollingParent, NestedScrollingChild {
+
+    private final NestedScrollingParentHelper mParentHelper = new NestedScrollingParentHelper(this);
+    private final NestedScrollingChildHelper mChildHelper;
+    private final int[] mParentScrollConsumed = new int[2];
+    private final int[] mParentOffsetInWindow = new int[2];
+    private SimpleRefreshAdapter<?> mAdapter;
+    private RecyclerView mRecyclerView;
+    private boolean mFlingToTop;
+    private float mFlingVelocity;   //向上fling的初速度，px/s
+    private long mFlingTime;
+    private final float mDeceleration;  //和Scroller一样按摩擦力计算的减速度，px/s²
+    private final RecyclerView.OnScrollListener mFlingListener = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+            if (newState != RecyclerView.SCROLL_STATE_SETTLING)
+                mFlingToTop = false;
+        }
+
+        @Override
+        public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+            //^_^,惯性滑到顶了
+            if (mFlingToTop && dy < 0 && mAdapter.isHeaderShowing(recyclerView) && mAdapter.canPull(recyclerView)) {
+                mFlingToTop = false;
+                float velocity = mFlingVelocity - mDeceleration * (SystemClock.uptimeMillis() - mFlingTime) / 1000;
+                if (velocity > 0)   //剩余速度全部减掉需要的距离，Header按下拉的阻尼弹出
+                    mAdapter.absorbFling(recyclerView, (int) (velocity * velocity / (2 * mDeceleration)));
+            }
+        }
+    };
+
+    public RefreshLayout(Context context) {
+        this(context, null);
+    }
+
+    public RefreshLayout(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public RefreshLayout(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        float ppi = context.getResources().getDisplayMetrics().density * 160;
+        mDeceleration = SensorManager.GRAVITY_EARTH * 39.37f * ppi * ViewConfiguration.getScrollFriction();
+        mChildHelper = new NestedScrollingChildHelper(this);
+        setNestedScrollingEnabled(true);
+    }
+
+    void attach(SimpleRefreshAdapter<?> adapter, RecyclerView recyclerView) {
+        if (mRecyclerView != null)
+            mRecyclerView.removeOnScrollListener(mFlingListener);
+        mAdapter = adapter;
+        mRecyclerView = recyclerView;
+        recyclerView.addOnScrollListener(mFlingListener);
+    }
+
+    void detach(RecyclerView recyclerView) {
+        if (mRecyclerView != recyclerView)
+            return;
+        recyclerView.removeOnScrollListener(mFlingListener);
+        mAdapter = null;
+        mRecyclerView = null;
+        mFlingToTop = false;
+    }
+
+    @Override
+    public boolean onStartNestedScroll(View child, View target, int nestedScrollAxes) {
+        return (nestedScrollAxes & ViewCompat.SCROLL_AXIS_VERTICAL) != 0;
+    }
+
+    @Override
+    public void onNestedScrollAccepted(View child, View target, int axes) {
+        mParentHelper.onNestedScrollAccepted(child, target, axes);
+        startNestedScroll(axes & ViewCompat.SCROLL_AXIS_VERTICAL);
+        mFlingToTop = false;
+    }
+
+    @Override
+    public void onNestedPreScroll(View target, int dx, int dy, int[] consumed) {
+        int pulled = mAdapter != null ? mAdapter.getPullDistance(mRecyclerView) : 0;
+        if (dy > 0 && pulled > 0) {     //Header拉开时先收回Header
+            int consumedY = Math.min(dy, pulled);
+            mAdapter.pullBy(mRecyclerView, -consumedY);
+            consumed[1] = consumedY;
+        }
+        int[] parentConsumed = mParentScrollConsumed;   //剩下的交给外层
+        if (dispatchNestedPreScroll(dx - consumed[0], dy - consumed[1], parentConsumed, null)) {
+            consumed[0] += parentConsumed[0];
+            consumed[1] += parentConsumed[1];
+        }
+    }
+
+    @Override
+    public void onNestedScroll(View target, int dxConsumed, int dyConsumed, int dxUnconsumed, int dyUnconsumed) {
+        //外层先处理(例如展开AppBarLayout)，它移动了本View的距离就是消费掉的
+        dispatchNestedScroll(dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed, mParentOffsetInWindow);
+        int dy = dyUnconsumed + mParentOffsetInWindow[1];
+        if (dy < 0 && mAdapter != null && mAdapter.isHeaderShowing(mRecyclerView) && mAdapter.canPull(mRecyclerView))
+            mAdapter.pullBy(mRecyclerView, -dy);
+    }
+
+    @Override
+    public boolean onNestedPreFling(View target, float velocityX, float velocityY) {
+        if (mAdapter != null && mAdapter.getPullDistance(mRecyclerView) > 0)
+            return true;    //Header拉开时松手交给Header处理
+        return dispatchNestedPreFling(velocityX, velocityY);
+    }
+
+    @Override
+    public boolean onNestedFling(View target, float velocityX, float velocityY, boolean consumed) {
+        mFlingToTop = mAdapter != null && consumed && velocityY < 0;
+        if (mFlingToTop) {
+            mFlingVelocity = -velocityY;
+            mFlingTime = SystemClock.uptimeMillis();
+        }
+        return dispatchNestedFling(velocityX, velocityY, consumed);
+    }
+
+    @Override
+    public void onStopNestedScroll(View target) {
+        mParentHelper.onStopNestedScroll(target);
+        if (mAdapter != null && mAdapter.getPullDistance(mRecyclerView) > 0)
+            mAdapter.releasePull(mRecyclerView);
+        stopNestedScroll();
+    }
+
+    @Override
+    public int getNestedScrollAxes() {
+        return mParentHelper.getNestedScrollAxes();
+    }
+
+    @Override
+    public void setNestedScrollingEnabled(boolean enabled) {
+        mChildHelper.setNestedScrollingEnabled(enabled);
+    }
+
+    @Override
+    public boolean isNestedScrollingEnabled() {
+        return mChildHelper.isNestedScrollingEnabled();
+    }
+
+    @Override
+    public boolean startNestedScroll(int axes) {
+        return mChildHelper.startNestedScroll(axes);
+    }
+
+    @Override
+    public void stopNestedScroll() {
+        mChildHelper.stopNestedScroll();
+    }
+
+    @Override
+    public boolean hasNestedScrollingParent() {
+        return mChildHelper.hasNestedScrollingParent();
+    }
+
+    @Override
+    public boolean dispatchNestedScroll(int dxConsumed, int dyConsumed, int dxUnconsumed, int dyUnconsumed, int[] offsetInWindow) {
+        return mChildHelper.dispatchNestedScroll(dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed, offsetInWindow);
+    }
+
+    @Override
+    public boolean dispatchNestedPreScroll(int dx, int dy, int[] consumed, int[] offsetInWindow) {
+        return mChildHelper.dispatchNestedPreScroll(dx, dy, consumed, offsetInWindow);
+    }
+
+    @Override
+    public boolean dispatchNestedFling(float velocityX, float velocityY, boolean consumed) {
+        return mChildHelper.dispatchNestedFling(velocityX, velocityY, consumed);
+    }
+
+    @Override
+    public boolean dispatchNestedPreFling(float velocityX, float velocityY) {
+        return mChildHelper.dispatchNestedPreFling(velocityX, velocityY);
+    }
+}
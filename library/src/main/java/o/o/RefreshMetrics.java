@@ -0,0 +1,115 @@
+package o.o;
+
+import android.util.SparseArray;
+
+/**
+ * @author https://github.com/timelessx
+ *         把 {@link MetricsListener} 的回调汇总成 {@link Histogram}，需要上报时读取后 {@link #reset()}；
+ *         时间单位：下拉和请求是毫秒，创建和绑定是微秒
+ */
+public class RefreshMetrics implements MetricsListener {
+
+    private final Histogram mPullDuration = new Histogram();
+    private final Histogram mRefreshLatency = new Histogram();
+    private final Histogram mLoadMoreLatency = new Histogram();
+    private final SparseArray<Histogram> mCreateTimes = new SparseArray<>();
+    private final SparseArray<Histogram> mBindTimes = new SparseArray<>();
+    private long mRefreshFailures;
+    private long mLoadMoreFailures;
+    private long mAnimationFrames;
+    private long mDroppedFrames;
+
+    @Override
+    public void onPullReleased(long durationMillis, boolean refresh) {
+        mPullDuration.record(durationMillis);
+    }
+
+    @Override
+    public void onRefreshFinished(long latencyMillis, boolean success) {
+        mRefreshLatency.record(latencyMillis);
+        if (!success)
+            mRefreshFailures++;
+    }
+
+    @Override
+    public void onLoadMoreFinished(long latencyMillis, boolean success) {
+        mLoadMoreLatency.record(latencyMillis);
+        if (!success)
+            mLoadMoreFailures++;
+    }
+
+    @Override
+    public void onViewHolderCreated(int viewType, long nanos) {
+        obtain(mCreateTimes, viewType).record(nanos / 1000);
+    }
+
+    @Override
+    public void onViewHolderBound(int viewType, long nanos) {
+        obtain(mBindTimes, viewType).record(nanos / 1000);
+    }
+
+    @Override
+    public void onHeaderAnimationFrames(int frames, int droppedFrames) {
+        mAnimationFrames += frames;
+        mDroppedFrames += droppedFrames;
+    }
+
+    public Histogram getPullDuration() {
+        return mPullDuration;
+    }
+
+    public Histogram getRefreshLatency() {
+        return mRefreshLatency;
+    }
+
+    public Histogram getLoadMoreLatency() {
+        return mLoadMoreLatency;
+    }
+
+    /**
+     * 没有创建过该类型时返回null
+     */
+    public Histogram getCreateTime(int viewType) {
+        return mCreateTimes.get(viewType);
+    }
+
+    public Histogram getBindTime(int viewType) {
+        return mBindTimes.get(viewType);
+    }
+
+    public long getRefreshFailures() {
+        return mRefreshFailures;
+    }
+
+    public long getLoadMoreFailures() {
+        return mLoadMoreFailures;
+    }
+
+    public long getAnimationFrames() {
+        return mAnimationFrames;
+    }
+
+    public long getDroppedFrames() {
+        return mDroppedFrames;
+    }
+
+    public void reset() {
+        mPullDuration.reset();
+        mRefreshLatency.reset();
+        mLoadMoreLatency.reset();
+        for (int i = 0; i < mCreateTimes.size(); i++)
+            mCreateTimes.valueAt(i).reset();
+        for (int i = 0; i < mBindTimes.size(); i++)
+            mBindTimes.valueAt(i).reset();
+        mRefreshFailures = mLoadMoreFailures = mAnimationFrames = mDroppedFrames = 0;
+    }
+
+    private static Histogram obtain(SparseArray<Histogram> histograms, int viewType) {
+        Histogram histogram = histograms.get(viewType);
+        if (histogram == null) {
+            histogram = new Histogram();
+            histograms.put(viewType, histogram);
+        }
+        return histogram;
+    }
+}
@@ -0,0 +1,28 @@
+package o.o;
+
+/**
+ * @author https://github.com/timelessx
+ *         加载更多失败后的自动重试策略，等待时间按指数增长，超过次数后只能点击Footer重试
+ */
+public class RetryPolicy {
+
+    private final int mMaxAttempts;
+    private final long mInitialDelay;
+    private final long mMaxDelay;
+
+    public RetryPolicy(int maxAttempts, long initialDelayMillis, long maxDelayMillis) {
+        mMaxAttempts = maxAttempts;
+        mInitialDelay = initialDelayMillis;
+        mMaxDelay = maxDelayMillis;
+    }
+
+    /**
+     * @param attempt 第几次重试，从1开始
+     * @return 重试前需要等待的毫秒数，-1表示不再自动重试
+     */
+    public long getDelay(int attempt) {
+        if (attempt > mMaxAttempts)
+            return -1;
+        return Math.min(mInitialDelay << Math.min(attempt - 1, 30), mMaxDelay);
+    }
+}
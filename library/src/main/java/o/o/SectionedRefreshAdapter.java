@@ -0,0 +1,169 @@
+package o.o;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.ViewGroup;
+
+import java.util.Arrays;
+
+/**
+ * @author https://github.com/timelessx
+ *         分组的 {@link SimpleRefreshAdapter}，每组前面有一个组头，组头在Grid和StaggeredGrid中占满一行，
+ *         配合 {@link StickySectionDecoration} 可以吸顶
+ *         <p>每组组头的位置保存为前缀和数组，position到(组, 组内位置)的换算用二分查找，O(log n)；
+ *         数组只在数据变化(除notifyItemChanged/notifyItemRangeChanged外的notify方法)后的下一次访问时重建一次，
+ *         只改内容不会移动组的边界</p>
+ *         <p>传给各方法的position都包含Header</p>
+ *         <p>组头默认使用 {@link #TYPE_SECTION_HEADER}，多个分组Adapter共用一个RecycledViewPool时
+ *         需要重写 {@link #getSectionHeaderViewType()} 各自返回不同的值，否则会拿到别的Adapter的组头</p>
+ */
+public abstract class SectionedRefreshAdapter<T extends RecyclerView.ViewHolder> extends SimpleRefreshAdapter<T> {
+
+    protected static final int TYPE_SECTION_HEADER = Integer.MIN_VALUE + 670;
+
+    private int[] mSectionStarts = new int[0];  //每组组头在自定义item中的位置
+    private int mSectionCount;
+    private int mTotalCount;
+    private boolean mIndexDirty = true;
+
+    public SectionedRefreshAdapter() {
+        registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onChanged() {
+                mIndexDirty = true;
+            }
+
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                mIndexDirty = true;
+            }
+
+            @Override
+            public void onItemRangeRemoved(int positionStart, int itemCount) {
+                mIndexDirty = true;
+            }
+
+            @Override
+            public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+                mIndexDirty = true;
+            }
+        });
+    }
+
+    /**
+     * 分组结构变化但还没调用notify方法时手动标记索引失效
+     */
+    public void invalidateSections() {
+        mIndexDirty = true;
+    }
+
+    /**
+     * @return 所在的组，Header/Footer返回-1
+     */
+    public int getSectionForPosition(int position) {
+        ensureIndex();
+        int offset = position - getHeaderCount();
+        if (offset < 0 || offset >= mTotalCount)
+            return -1;
+        int index = Arrays.binarySearch(mSectionStarts, 0, mSectionCount, offset);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * @return 在组内的位置，组头和Header/Footer返回-1
+     */
+    public int getPositionInSection(int position) {
+        int section = getSectionForPosition(position);
+        if (section < 0)
+            return -1;
+        return position - getHeaderCount() - mSectionStarts[section] - 1;
+    }
+
+    public int getSectionHeaderPosition(int section) {
+        ensureIndex();
+        return mSectionStarts[section] + getHeaderCount();
+    }
+
+    public boolean isSectionHeader(int position) {
+        ensureIndex();
+        return Arrays.binarySearch(mSectionStarts, 0, mSectionCount, position - getHeaderCount()) >= 0;
+    }
+
+    private void ensureIndex() {
+        if (!mIndexDirty)
+            return;
+        int count = getSectionCount();
+        if (mSectionStarts.length < count)
+            mSectionStarts = new int[Math.max(count, mSectionStarts.length << 1)];
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            mSectionStarts[i] = total;
+            total += 1 + getItemCountInSection(i);
+        }
+        mSectionCount = count;
+        mTotalCount = total;
+        mIndexDirty = false;
+    }
+
+    /**
+     * 组头的viewType，不能和 {@link #getSectionItemViewType(int, int)} 返回的值重复
+     */
+    protected int getSectionHeaderViewType() {
+        return TYPE_SECTION_HEADER;
+    }
+
+    @Override
+    protected final int getCustomItemCount() {
+        ensureIndex();
+        return mTotalCount;
+    }
+
+    @Override
+    protected final int getCustomItemViewType(int position) {
+        int section = getSectionForPosition(position);
+        int offset = position - getHeaderCount() - mSectionStarts[section] - 1;
+        if (offset < 0)
+            return getSectionHeaderViewType();
+        int viewType = getSectionItemViewType(section, offset);
+        if (viewType == getSectionHeaderViewType())
+            throw new IllegalStateException("viewType " + viewType + " is reserved for section header");
+        return viewType;
+    }
+
+    @Override
+    protected final T onCreateCustomViewHolder(ViewGroup parent, int viewType) {
+        if (viewType == getSectionHeaderViewType())
+            return onCreateSectionHeaderViewHolder(parent);
+        return onCreateSectionItemViewHolder(parent, viewType);
+    }
+
+    @Override
+    protected final void onBindCustomViewHolder(T holder, int position) {
+        int section = getSectionForPosition(position);
+        int offset = position - getHeaderCount() - mSectionStarts[section] - 1;
+        if (offset < 0)
+            onBindSectionHeaderViewHolder(holder, section);
+        else
+            onBindSectionItemViewHolder(holder, section, offset);
+    }
+
+    @Override
+    protected boolean isFullSpanViewType(int viewType) {
+        return viewType == getSectionHeaderViewType() || super.isFullSpanViewType(viewType);
+    }
+
+    protected int getSectionItemViewType(int section, int position) {
+        return 0;
+    }
+
+    protected abstract int getSectionCount();
+
+    protected abstract int getItemCountInSection(int section);
+
+    protected abstract T onCreateSectionHeaderViewHolder(ViewGroup parent);
+
+    protected abstract T onCreateSectionItemViewHolder(ViewGroup parent, int viewType);
+
+    protected abstract void onBindSectionHeaderViewHolder(T holder, int section);
+
+    protected abstract void onBindSectionItemViewHolder(T holder, int section, int position);
+}
@@ -0,0 +1,508 @@
+package o.o;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.util.ListUpdateCallback;
+import android.support.v7.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * @author https://github.com/timelessx
+ *         内置数据列表的 {@link SimpleRefreshAdapter}
+ *         <p>{@link #submitList(List)} 在后台线程用 {@link DiffUtil} 计算新旧列表差异，回到主线程后只通知变化的区间，
+ *         区间已经加上了Header的偏移；计算过程中又提交了新列表时，旧的结果直接丢弃</p>
+ *         <p>传给 {@link #onBindCustomViewHolder(RecyclerView.ViewHolder, int)} 的position包含Header，
+ *         用 {@link #getItem(int)} 取数据即可</p>
+ *         <p>数据是 {@link PagedStorage} 时只在内存中保留一部分页，被清掉的页 {@link #getItem(int)} 返回null，
+ *         需要绑定为占位样式，重新加载回来后会自动刷新对应的item；
+ *         之后的刷新({@link #submitList(List)}、{@link #setData(List)})和 {@link #addData(List)} 都在这个PagedStorage上进行，不会被普通List替换</p>
+ *         <p>设置 {@link DataLoader} 后不再需要自己处理线程和调用notify方法：刷新和加载更多在 {@link #setLoadExecutor(ExecutorService)}
+ *         上执行，超过 {@link #setLoadTimeout(long)} 会被取消并按失败处理，结果在主线程应用</p>
+ *         <p>设置 {@link Snapshot} 后，{@link #notifyRefreshCompleted()} 时把刷新得到的数据保存到磁盘，
+ *         下次 {@link #refresh()} 时列表为空就先显示快照，刷新结果回来后通过diff只更新变化的item</p>
+ */
+public abstract class SimpleListAdapter<D, T extends RecyclerView.ViewHolder> extends SimpleRefreshAdapter<T> {
+
+    private static Executor sDiffExecutor;
+    private static ExecutorService sLoadExecutor;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private Executor mDiffExecutor;
+    private List<D> mList;
+    private int mGeneration;    //每次替换数据+1，用来丢弃过期的diff结果
+    private int mModCount;      //addData时+1，diff期间旧列表被修改过就整体刷新
+
+    private DataLoader<D> mLoader;
+    private ExecutorService mLoadExecutor;
+    private long mLoadTimeout = 15000;
+    private LoadTask mRefreshTask, mLoadMoreTask;
+    private LoadTask mPrefetchTask;     //下拉过程中提前开始的刷新，松手后变成mRefreshTask
+    private Snapshot<D> mSnapshot;
+    private List<D> mRefreshedList;     //最近一次刷新提交的数据，notifyRefreshCompleted时保存为快照
+    private final OnPrefetchRefreshListener mLoaderListener = new OnPrefetchRefreshListener() {
+        @Override
+        public void onRefresh() {
+            load(true);
+        }
+
+        @Override
+        public void onPrefetchRefresh(int token) {
+            if (mPrefetchTask != null)
+                mPrefetchTask.cancel();
+            mPrefetchTask = new LoadTask(new DataLoader.LoadRequest(true, 0, getSuggestedPageSize(true), token));
+            mPrefetchTask.start();
+        }
+
+        @Override
+        public void onCancelPrefetchRefresh(int token) {
+            if (mPrefetchTask != null && mPrefetchTask.mRequest.token == token) {
+                mPrefetchTask.cancel();
+                mPrefetchTask = null;
+            }
+        }
+
+        @Override
+        public void onLoadMore() {
+            load(false);
+        }
+    };
+
+    private final PagedStorage.Callback mPageCallback = new PagedStorage.Callback() {
+        @Override
+        public void onPageLoaded(final int start, final int count) {
+            mMainHandler.post(new Runnable() {  //可能在绑定过程中回调，推迟到layout之后
+                @Override
+                public void run() {
+                    if (mList instanceof PagedStorage)
+                        notifyItemRangeChanged(start + getHeaderCount(), count);
+                }
+            });
+        }
+    };
+
+    private final ListUpdateCallback mUpdateCallback = new ListUpdateCallback() {
+        @Override
+        public void onInserted(int position, int count) {
+            notifyItemRangeInserted(position + getHeaderCount(), count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            notifyItemRangeRemoved(position + getHeaderCount(), count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            notifyItemMoved(fromPosition + getHeaderCount(), toPosition + getHeaderCount());
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            notifyItemRangeChanged(position + getHeaderCount(), count, payload);
+        }
+    };
+
+    public SimpleListAdapter() {
+    }
+
+    public SimpleListAdapter(List<D> list) {
+        setList(list);
+    }
+
+    /**
+     * 默认所有SimpleListAdapter共用一个单线程Executor
+     */
+    public void setDiffExecutor(Executor executor) {
+        mDiffExecutor = executor;
+    }
+
+    /**
+     * 设置后会替换 {@link OnRefreshListener}，刷新和加载更多都交给loader，
+     * 同时支持 {@link #setSpeculativeRefresh(boolean)}
+     */
+    public void setDataLoader(DataLoader<D> loader) {
+        mLoader = loader;
+        setOnRefreshListener(loader == null ? null : mLoaderListener);
+    }
+
+    /**
+     * 默认所有SimpleListAdapter共用一个缓存线程池
+     */
+    public void setLoadExecutor(ExecutorService executor) {
+        mLoadExecutor = executor;
+    }
+
+    /**
+     * 单次加载的超时时间，小于等于0表示不限制
+     */
+    public void setLoadTimeout(long millis) {
+        mLoadTimeout = millis;
+    }
+
+    /**
+     * 设置第一页数据的磁盘快照，null表示不使用
+     */
+    public void setSnapshot(Snapshot<D> snapshot) {
+        mSnapshot = snapshot;
+    }
+
+    /**
+     * 显示刷新中并通过 {@link DataLoader} 加载第一页，列表为空时先显示快照
+     */
+    public void refresh() {
+        setRefreshing(true);
+        if (getCustomItemCount() == 0)
+            restoreSnapshot();
+        load(true);
+    }
+
+    @Override
+    public void notifyRefreshCompleted() {
+        super.notifyRefreshCompleted();
+        final Snapshot<D> snapshot = mSnapshot;
+        final List<D> list = mRefreshedList;
+        mRefreshedList = null;
+        if (snapshot == null || list == null || list instanceof PagedStorage)
+            return;
+        final List<D> copy = new ArrayList<>(list);     //之后的addData会修改原来的list
+        getLoadExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                snapshot.write(copy);
+            }
+        });
+    }
+
+    private void restoreSnapshot() {
+        final Snapshot<D> snapshot = mSnapshot;
+        if (snapshot == null)
+            return;
+        final int generation = mGeneration;
+        getLoadExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final List<D> list = snapshot.read();
+                if (list == null || list.isEmpty())
+                    return;
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != mGeneration || getCustomItemCount() != 0)   //刷新结果已经先回来了
+                            return;
+                        setData(list);
+                        mRefreshedList = null;  //快照本身不需要再保存
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 取消正在进行的加载，结果不会再被应用，例如在onDestroy中调用
+     */
+    public void cancelLoads() {
+        if (mRefreshTask != null)
+            mRefreshTask.cancel();
+        if (mLoadMoreTask != null)
+            mLoadMoreTask.cancel();
+        if (mPrefetchTask != null)
+            mPrefetchTask.cancel();
+        mRefreshTask = mLoadMoreTask = mPrefetchTask = null;
+    }
+
+    public List<D> getData() {
+        return mList;
+    }
+
+    public D getItem(int position) {
+        return mList.get(position - getHeaderCount());
+    }
+
+    /**
+     * 直接替换数据并 {@link #notifyDataSetChanged()}，正在进行的diff会被丢弃；
+     * 当前数据是 {@link PagedStorage} 时只替换其中的内容，传入另一个PagedStorage或null才会整个替换
+     */
+    public void setData(List<D> list) {
+        mGeneration++;
+        mRefreshedList = list;
+        if (mList instanceof PagedStorage && list != null && !(list instanceof PagedStorage)) {
+            mList.clear();      //保留PagedStorage，刷新后继续按页清理
+            mList.addAll(list);
+            mModCount++;
+        } else
+            setList(list);
+        notifyDataSetChanged();
+    }
+
+    /**
+     * 追加数据，list需要是可修改的
+     */
+    public void addData(List<D> list) {
+        if (list == null || list.isEmpty())
+            return;
+        if (mList == null || mList.isEmpty()) {     //从空到有数据时Footer也一起出现
+            setData(list);
+            return;
+        }
+        int size = mList.size();
+        mList.addAll(list);
+        mModCount++;
+        notifyItemRangeInserted(size + getHeaderCount(), list.size());
+    }
+
+    /**
+     * 在Header下面插入更早的数据，当前可见的item位置不变，list需要是可修改的
+     * <p>{@link PagedStorage} 只能在末尾追加，当前数据是PagedStorage时抛出 {@link UnsupportedOperationException}</p>
+     */
+    public void prependData(List<D> list) {
+        if (mList instanceof PagedStorage)
+            throw new UnsupportedOperationException("prependData is not supported on PagedStorage, it only grows at the tail");
+        if (list == null || list.isEmpty())
+            return;
+        if (mList == null || mList.isEmpty()) {
+            setData(list);
+            return;
+        }
+        mList.addAll(0, list);
+        mModCount++;
+        notifyItemRangePrepended(list.size());
+    }
+
+    /**
+     * 在后台计算差异后替换数据，只通知变化的item
+     */
+    public void submitList(final List<D> list) {
+        final List<D> oldList = mList;
+        if (list == oldList)
+            return;
+        mRefreshedList = list;
+        if (oldList == null || oldList.isEmpty() || list == null || list.isEmpty()
+                || oldList instanceof PagedStorage || list instanceof PagedStorage) {  //分页数据不能在后台线程遍历
+            setData(list);
+            return;
+        }
+        final int generation = ++mGeneration;
+        final int modCount = mModCount;
+        final int oldSize = oldList.size();
+        final int newSize = list.size();
+        getDiffExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+                    @Override
+                    public int getOldListSize() {
+                        return oldSize;
+                    }
+
+                    @Override
+                    public int getNewListSize() {
+                        return newSize;
+                    }
+
+                    @Override
+                    public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                        return SimpleListAdapter.this.areItemsTheSame(oldList.get(oldItemPosition), list.get(newItemPosition));
+                    }
+
+                    @Override
+                    public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                        return SimpleListAdapter.this.areContentsTheSame(oldList.get(oldItemPosition), list.get(newItemPosition));
+                    }
+
+                    @Override
+                    public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+                        return SimpleListAdapter.this.getChangePayload(oldList.get(oldItemPosition), list.get(newItemPosition));
+                    }
+                });
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != mGeneration)     //o.o,已经有更新的数据了
+                            return;
+                        setList(list);
+                        if (modCount != mModCount)
+                            notifyDataSetChanged();
+                        else
+                            result.dispatchUpdatesTo(mUpdateCallback);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 在后台线程调用，判断是否是同一条数据
+     */
+    protected boolean areItemsTheSame(D oldItem, D newItem) {
+        return oldItem == null ? newItem == null : oldItem.equals(newItem);
+    }
+
+    /**
+     * 在后台线程调用，判断同一条数据的内容是否变化
+     */
+    protected boolean areContentsTheSame(D oldItem, D newItem) {
+        return oldItem == null ? newItem == null : oldItem.equals(newItem);
+    }
+
+    /**
+     * 在后台线程调用，同一条数据内容变化时返回描述变化的payload，
+     * 会传给 {@link #onBindCustomViewHolder(RecyclerView.ViewHolder, int, List)} 做局部刷新
+     */
+    protected Object getChangePayload(D oldItem, D newItem) {
+        return null;
+    }
+
+    @Override
+    protected void onTrimData(int level) {
+        if (mList instanceof PagedStorage)  //只保留最近访问的页，滑回来时重新加载
+            ((PagedStorage) mList).trimToVisible();
+    }
+
+    @Override
+    protected int getCustomItemCount() {
+        return mList == null ? 0 : mList.size();
+    }
+
+    private void load(boolean refresh) {
+        LoadTask prefetched = mPrefetchTask;
+        if (refresh && prefetched != null && prefetched.mRequest.token == getRefreshToken()) {
+            mPrefetchTask = null;
+            cancelLoads();
+            mRefreshTask = prefetched;
+            if (prefetched.mDone)   //松手前已经加载完了
+                deliver(prefetched, prefetched.mResult, prefetched.mError);
+            return;
+        }
+        if (refresh)
+            cancelLoads();  //新的刷新开始后之前的结果都作废
+        else if (mLoadMoreTask != null)
+            mLoadMoreTask.cancel();
+        DataLoader.LoadRequest request = new DataLoader.LoadRequest(refresh, refresh ? 0 : getCustomItemCount(),
+                getSuggestedPageSize(refresh), refresh ? getRefreshToken() : getLoadMoreToken());
+        LoadTask task = new LoadTask(request);
+        if (refresh)
+            mRefreshTask = task;
+        else
+            mLoadMoreTask = task;
+        task.start();
+    }
+
+    private void onLoadFinished(LoadTask task, List<D> result, Exception error) {
+        if (task.mRequest.isCancelled())
+            return;
+        if (task == mPrefetchTask) {    //还没有松手，先保存结果
+            task.mResult = result;
+            task.mError = error;
+            task.mDone = true;
+            return;
+        }
+        deliver(task, result, error);
+    }
+
+    private void deliver(LoadTask task, List<D> result, Exception error) {
+        if (!isRequestCurrent(task.mRequest.token))
+            return;
+        if (task == mRefreshTask)
+            mRefreshTask = null;
+        else if (task == mLoadMoreTask)
+            mLoadMoreTask = null;
+        if (error != null) {
+            notifyNetError();
+        } else if (task.mRequest.refresh) {
+            submitList(result);
+            notifyRefreshCompleted();
+        } else {
+            addData(result);
+            notifyLoadMoreCompleted();
+        }
+    }
+
+    private ExecutorService getLoadExecutor() {
+        if (mLoadExecutor != null)
+            return mLoadExecutor;
+        synchronized (SimpleListAdapter.class) {
+            if (sLoadExecutor == null)
+                sLoadExecutor = Executors.newCachedThreadPool();
+            return sLoadExecutor;
+        }
+    }
+
+    private void setList(List<D> list) {
+        if (mList instanceof PagedStorage && mList != list)
+            ((PagedStorage) mList).setCallback(null);
+        if (list instanceof PagedStorage)
+            ((PagedStorage) list).setCallback(mPageCallback);
+        mList = list;
+    }
+
+    private Executor getDiffExecutor() {
+        if (mDiffExecutor != null)
+            return mDiffExecutor;
+        synchronized (SimpleListAdapter.class) {
+            if (sDiffExecutor == null)
+                sDiffExecutor = Executors.newSingleThreadExecutor();
+            return sDiffExecutor;
+        }
+    }
+
+    private class LoadTask implements Runnable {
+        final DataLoader.LoadRequest mRequest;
+        private final DataLoader<D> mTaskLoader = mLoader;
+        private Future<?> mFuture;
+        boolean mDone;
+        List<D> mResult;
+        Exception mError;
+        private final Runnable mTimeout = new Runnable() {
+            @Override
+            public void run() {
+                onLoadFinished(LoadTask.this, null, new TimeoutException());
+                cancel();   //之后返回的结果直接丢弃
+            }
+        };
+
+        LoadTask(DataLoader.LoadRequest request) {
+            mRequest = request;
+        }
+
+        void start() {
+            mFuture = getLoadExecutor().submit(this);
+            if (mLoadTimeout > 0)
+                mMainHandler.postDelayed(mTimeout, mLoadTimeout);
+        }
+
+        void cancel() {
+            mRequest.cancel();
+            mMainHandler.removeCallbacks(mTimeout);
+            if (mFuture != null)
+                mFuture.cancel(true);
+        }
+
+        @Override
+        public void run() {
+            List<D> result = null;
+            Exception error = null;
+            try {
+                result = mTaskLoader.load(mRequest);
+            } catch (Exception e) {
+                error = e;
+            }
+            final List<D> data = result;
+            final Exception exception = error;
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    mMainHandler.removeCallbacks(mTimeout);
+                    onLoadFinished(LoadTask.this, data, exception);
+                }
+            });
+        }
+    }
+}
@@ -1,14 +1,30 @@
 package o.o;
 
+import android.annotation.TargetApi;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.support.v7.widget.GridLayoutManager;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.support.v7.widget.StaggeredGridLayoutManager;
-import android.view.LayoutInflater;
+import android.util.SparseIntArray;
+import android.view.Choreographer;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 /**
  * @author https://github.com/timelessx
  *         判断RecyclerView到达底部或顶部目前常见有以下方法：
@@ -27,21 +43,150 @@ import android.view.ViewGroup;
  *         这里只不过提供了一种全新的思路,至于功能和其他细节大家自己处理，这里只不过是一个简单示例
  *         <p>刷新完成后需要手动调用 {@link #notifyRefreshCompleted()} 来重置状态并隐藏Header</p>
  *         <p>加载更多完成后需要手动调用 {@link #notifyLoadMoreCompleted()} 重置状态</p>
+ *         <p>默认在Footer绑定时触发加载更多，可通过 {@link #setPrefetchDistance(int)} 或 {@link #setPrefetchScreens(float)}
+ *         提前触发，快速滑动时会根据绑定速度按 {@link #setPrefetchLookahead(long)} 再向前多预取一段</p>
+ *         <p>RecyclerView放在 {@link RefreshLayout} 中时通过嵌套滑动下拉，不再设置OnTouchListener</p>
+ *         <p>可以同时attach到多个RecyclerView，每个RecyclerView有自己的Header、Footer和下拉状态，
+ *         数据、刷新和加载更多的状态是共用的</p>
+ *         <p>Header和Footer在第一次需要时才创建，之后重复attach或切换LayoutManager都复用同一个实例；
+ *         Footer要等内容超过一屏(Header第一次被划出)后才会加入列表，在此之前滑到最后一个item时直接触发加载更多</p>
+ *         <p>多个Adapter可以共用一个 {@link RecyclerView.RecycledViewPool}：Header/Footer的viewType是保留值，
+ *         自定义类型与之冲突时会抛出异常，Header/Footer的ViewHolder不会进入缓存池，
+ *         各类型缓存数量通过 {@link #setMaxRecycledViews(int, int)} 设置</p>
+ *         <p>{@link #setHasStableIds(boolean)} 后通过 {@link #getCustomItemId(int)} 提供item的id，Header/Footer使用固定的id；
+ *         带payload的局部刷新会回调 {@link #onBindCustomViewHolder(RecyclerView.ViewHolder, int, List)}</p>
+ *         <p>StaggeredGrid中可以通过 {@link #setItemSizeCacheEnabled(boolean)} 缓存item高度：
+ *         {@link #getCustomItemSize(int)} 预先给出的或第一次测量出的高度在绑定时直接设置，往回滑动时不再重新测量导致错位</p>
+ *         <p>设置 {@link OnLoadPreviousListener} 后手指或惯性向上滑动到Header出现时加载更早的数据，
+ *         setData等引起的重新layout不会触发，Header已经拉开(正在下拉刷新)时也不会触发，完成后用
+ *         {@link #notifyItemRangePrepended(int)} 插入到Header下面，当前可见的item保持位置不变且不会重新绑定，
+ *         最后调用 {@link #notifyLoadPreviousCompleted()}</p>
+ *         <p>{@link #setSpeculativeRefresh(boolean)} 后下拉超过刷新高度时就通过
+ *         {@link OnPrefetchRefreshListener#onPrefetchRefresh(int)} 提前开始请求，松手后直接使用这个请求的结果；
+ *         拉回去时请求先保留 {@link #setSpeculativeCacheTime(long)}，期间再次拉过刷新高度会继续使用，超时后取消</p>
+ *         <p>{@link #setMetricsListener(MetricsListener)} 后统计下拉时长、刷新/加载更多耗时、各类型的创建/绑定耗时和Header动画的丢帧，
+ *         没有设置时不计时</p>
+ *         <p>{@link #setTrimMemoryEnabled(boolean)} 后在系统内存不足时按级别释放缓存：清空缓存池、丢掉不在屏幕上的Header/Footer、
+ *         释放动画、清掉远离可见区域的数据，之后都会在需要时重新创建，也可以自己调用 {@link #onTrimMemory(int)}；
+ *         被释放的Footer通过 {@link #getFooterView(RecyclerView)} 获取时为null</p>
+ *         <p>设置 {@link PageSizeController} 后根据加载耗时、滑动速度和一屏的item数给出建议的页大小，
+ *         在 {@link OnRefreshListener} 中通过 {@link #getSuggestedPageSize(boolean)} 获取</p>
+ *         <p>加载更多失败时调用 {@link #notifyNetError()}，Footer显示失败状态，按 {@link RetryPolicy} 延时重试，
+ *         也可以点击Footer立即重试；每次刷新/加载更多都有一个token，回调前用 {@link #isRequestCurrent(int)}
+ *         判断结果是否已经过期，避免新的刷新之后又追加了旧的数据</p>
  */
 
 public abstract class SimpleRefreshAdapter<T extends RecyclerView.ViewHolder> extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
 
-    protected static final int TYPE_HEADER = 666;
-    protected static final int TYPE_FOOTER = 668;
+    protected static final int TYPE_HEADER = Integer.MIN_VALUE + 666;
+    protected static final int TYPE_FOOTER = Integer.MIN_VALUE + 668;
+    public static final long HEADER_ID = Long.MIN_VALUE;
+    public static final long FOOTER_ID = Long.MIN_VALUE + 1;
+
+    private static ExecutorService sInflateExecutor;
 
-    private RefreshHeader mHeaderView;
-    protected View mFooterView;
+    private final ArrayList<Host> mHosts = new ArrayList<>(1);
+    //创建过的所有Header/Footer，状态变化时一起更新；RecyclerView detach后留下一个不属于任何Host的给下次attach复用
+    private final ArrayList<RefreshHeader> mHeaders = new ArrayList<>();
+    private final ArrayList<RefreshFooter> mFooters = new ArrayList<>();
+    private boolean mFooterShown;
+    private final SparseIntArray mMaxRecycledViews = new SparseIntArray();
+    private final ArrayList<PreInflateTask> mPreInflateTasks = new ArrayList<>();
+    private ItemSizeCache mSizeCache;
+    private final SparseIntArray mDeclaredHeights = new SparseIntArray();  //各viewType布局中声明的高度
     private boolean mHeaderEnabled = true;
     private boolean mFooterEnabled = true;
+    private boolean mLayoutFreePull;
+    private boolean mFrameSyncPull;
     private OnRefreshListener mOnRefreshListener;
+    private OnLoadPreviousListener mOnLoadPreviousListener;
+    private boolean isLoadingPrevious;
     private boolean isRefreshing;
     private boolean isLoading;
-    private boolean isHeaderShowing;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private boolean mLoadError;
+    private int mRetryAttempt;
+    private RetryPolicy mRetryPolicy = new RetryPolicy(3, 1000, 8000);
+    private int mRequestToken;
+    private int mRefreshToken;
+    private int mLoadMoreToken;
+    private int mLoadPreviousToken;
+    private boolean mSpeculativeRefresh;
+    private long mSpeculativeCacheTime = 3000;
+    private MetricsListener mMetrics;
+    private boolean mTrimMemoryEnabled;
+    private Context mTrimContext;    //注册了mTrimCallbacks的Application
+    private final ComponentCallbacks2 mTrimCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            SimpleRefreshAdapter.this.onTrimMemory(level);
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+        }
+
+        @Override
+        public void onLowMemory() {
+            SimpleRefreshAdapter.this.onTrimMemory(TRIM_MEMORY_COMPLETE);
+        }
+    };
+    private long mRefreshStartTime, mLoadMoreStartTime;
+    private PageSizeController mPageSizeController;
+    private int mSpeculativeToken;  //下拉过程中提前开始的刷新
+    private final Runnable mCancelSpeculativeAction = new Runnable() {
+        @Override
+        public void run() {
+            cancelSpeculativeRefresh();
+        }
+    };
+    private final RefreshHeader.OnStateChangeListener mHeaderStateListener = new RefreshHeader.OnStateChangeListener() {
+        @Override
+        public void onStateChanged(RefreshHeader header, int oldState, int newState) {
+            onHeaderStateChanged(oldState, newState);
+        }
+    };
+    private final Runnable mRetryAction = new Runnable() {
+        @Override
+        public void run() {
+            retryLoadMore();
+        }
+    };
+    //向上滑动到顶时才加载更早的数据，notifyDataSetChanged后Header重新attach不算
+    private final RecyclerView.OnScrollListener mTopEdgeListener = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+            if (dy < 0 && mOnLoadPreviousListener != null && isHeaderShowing(recyclerView))
+                mHandler.post(mLoadPreviousAction);     //可能正在layout，不能直接插入数据
+        }
+    };
+    private final Runnable mLoadPreviousAction = new Runnable() {
+        @Override
+        public void run() {
+            loadPrevious();
+        }
+    };
+    private final Runnable mShowFooterAction = new Runnable() {
+        @Override
+        public void run() {
+            showFooter();
+        }
+    };
+    private final View.OnClickListener mFooterClickListener = new View.OnClickListener() {
+        @Override
+        public void onClick(View v) {
+            mRetryAttempt = 0;
+            retryLoadMore();
+        }
+    };
+
+    private int mPrefetchDistance;
+    private float mPrefetchScreens;
+    private long mPrefetchLookahead = 300;
+    private int mLastBindPosition;
+    private long mLastBindTime;
+    private float mBindRate;    //滑动时每毫秒绑定的item数
 
     public void setHeaderEnable(boolean enable) {
         mHeaderEnabled = enable;
@@ -51,67 +196,365 @@ public abstract class SimpleRefreshAdapter<T extends RecyclerView.ViewHolder> ex
         mFooterEnabled = enable;
     }
 
+    /**
+     * 距离末尾还剩多少个item时触发加载更多，0表示等Footer出现时才触发
+     */
+    public void setPrefetchDistance(int items) {
+        mPrefetchDistance = items;
+    }
+
+    /**
+     * 距离末尾还剩多少屏时触发加载更多，一屏的item数按RecyclerView当前的子View数估算
+     */
+    public void setPrefetchScreens(float screens) {
+        mPrefetchScreens = screens;
+    }
+
+    /**
+     * 预计一次加载更多的耗时，滑动越快预取距离越大: 额外距离 = 绑定速度 * lookahead
+     */
+    public void setPrefetchLookahead(long millis) {
+        mPrefetchLookahead = millis;
+    }
+
+    /**
+     * 下拉过程中不触发RecyclerView重新layout，见 {@link RefreshHeader#setLayoutFree(boolean)}
+     */
+    public void setLayoutFreePull(boolean layoutFree) {
+        mLayoutFreePull = layoutFree;
+        for (RefreshHeader header : mHeaders)
+            header.setLayoutFree(layoutFree);
+    }
+
+    /**
+     * 下拉时只累计手指位移(包括MotionEvent中批量的历史点)，每个vsync才通过 {@link Choreographer} 更新一次Header，
+     * 需要API 16，低版本仍按每个事件更新
+     */
+    public void setFrameSyncPull(boolean frameSync) {
+        mFrameSyncPull = frameSync;
+    }
+
+    /**
+     * 设置某个viewType在缓存池中最多保留的数量，attach时应用到RecyclerView当前的缓存池上，共用缓存池时以最后设置的为准
+     */
+    public void setMaxRecycledViews(int viewType, int max) {
+        mMaxRecycledViews.put(viewType, max);
+        for (int i = 0; i < mHosts.size(); i++)
+            mHosts.get(i).recyclerView.getRecycledViewPool().setMaxRecycledViews(viewType, max);
+    }
+
+    /**
+     * 缓存StaggeredGrid中item的高度，开启stable ids时以id为key，刷新时清空，插入/删除时跟着移动
+     */
+    public void setItemSizeCacheEnabled(boolean enabled) {
+        if (enabled == (mSizeCache != null))
+            return;
+        if (enabled) {
+            mSizeCache = new ItemSizeCache(this);
+            registerAdapterDataObserver(mSizeCache);
+        } else {
+            unregisterAdapterDataObserver(mSizeCache);
+            mSizeCache = null;
+        }
+    }
+
     public void setOnRefreshListener(OnRefreshListener listener) {
         mOnRefreshListener = listener;
     }
 
+    /**
+     * 下拉超过刷新高度时就提前开始刷新，需要 {@link OnRefreshListener} 实现 {@link OnPrefetchRefreshListener}
+     */
+    public void setSpeculativeRefresh(boolean speculative) {
+        mSpeculativeRefresh = speculative;
+        if (!speculative)
+            cancelSpeculativeRefresh();
+    }
+
+    /**
+     * 拉回去没有松手刷新时，提前开始的请求保留多久，0表示立即取消
+     */
+    public void setSpeculativeCacheTime(long millis) {
+        mSpeculativeCacheTime = millis;
+    }
+
+    /**
+     * 设置性能数据的回调，可以使用 {@link RefreshMetrics}，null表示不统计
+     */
+    public void setMetricsListener(MetricsListener listener) {
+        mMetrics = listener;
+        for (RefreshHeader header : mHeaders)
+            header.setMetricsListener(listener);
+    }
+
+    public void setPageSizeController(PageSizeController controller) {
+        mPageSizeController = controller;
+    }
+
+    /**
+     * 建议这次刷新/加载更多请求的数据条数，没有设置 {@link PageSizeController} 时返回0
+     */
+    public int getSuggestedPageSize(boolean refresh) {
+        if (mPageSizeController == null)
+            return 0;
+        int items = 0;
+        for (int i = 0; i < mHosts.size(); i++) {     //列数×可见行数，不算Header/Footer，多个RecyclerView时取最大的
+            RecyclerView rv = mHosts.get(i).recyclerView;
+            int count = 0;
+            for (int j = 0; j < rv.getChildCount(); j++)
+                if (!(rv.getChildViewHolder(rv.getChildAt(j)) instanceof ViewHolder))
+                    count++;
+            items = Math.max(items, count);
+        }
+        mPageSizeController.setViewportCapacity(items);
+        return mPageSizeController.getPageSize(refresh);
+    }
+
+    /**
+     * attach到RecyclerView期间(包括RecyclerView离开窗口后，例如ViewPager中被销毁View的页面)监听系统的onTrimMemory；
+     * 注册在Application上，Activity销毁时需要setAdapter(null)或者关闭，否则会一直引用RecyclerView
+     */
+    public void setTrimMemoryEnabled(boolean enabled) {
+        mTrimMemoryEnabled = enabled;
+        updateTrimCallbacks();
+    }
+
+    /**
+     * 按内存紧张程度释放可以重建的缓存，在主线程调用
+     *
+     * @param level {@link ComponentCallbacks2} 中的TRIM_MEMORY_*
+     */
+    public void onTrimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW)
+            for (int i = 0; i < mHosts.size(); i++)
+                mHosts.get(i).recyclerView.getRecycledViewPool().clear();
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            for (int i = mHeaders.size() - 1; i >= 0; i--) {
+                RefreshHeader header = mHeaders.get(i);
+                if (header.getParent() != null) {
+                    header.releaseAnimators();
+                    continue;
+                }
+                mHeaders.remove(i);     //不在屏幕上，需要时再创建
+                for (int j = 0; j < mHosts.size(); j++)
+                    if (mHosts.get(j).header == header)
+                        mHosts.get(j).header = null;
+            }
+            for (int i = mFooters.size() - 1; i >= 0; i--) {
+                RefreshFooter footer = mFooters.get(i);
+                if (footer.getParent() != null)
+                    continue;
+                mFooters.remove(i);
+                for (int j = 0; j < mHosts.size(); j++)
+                    if (mHosts.get(j).footer == footer)
+                        mHosts.get(j).footer = null;
+            }
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            if (mSizeCache != null)
+                mSizeCache.clear();
+            onTrimData(level);
+        }
+    }
+
+    /**
+     * 进入后台后内存不足时调用，可以在这里释放远离可见区域的数据
+     */
+    protected void onTrimData(int level) {
+    }
+
+    /**
+     * 设置后向上滑动到顶时加载更早的数据，null表示关闭
+     */
+    public void setOnLoadPreviousListener(OnLoadPreviousListener listener) {
+        mOnLoadPreviousListener = listener;
+    }
+
+    /**
+     * 加载更多失败后的自动重试策略，null表示只能点击Footer重试
+     */
+    public void setRetryPolicy(RetryPolicy policy) {
+        mRetryPolicy = policy;
+    }
+
     public void setRefreshing(boolean refreshing) {
+        if (refreshing)
+            startRefresh();
         isRefreshing = refreshing;
-        mHeaderView.setRefreshing(refreshing);
+        for (RefreshHeader header : mHeaders)
+            header.setRefreshing(refreshing);
     }
 
     public void notifyRefreshCompleted() {
-        mHeaderView.refreshCompleted();
+        if (mMetrics != null && isRefreshing)
+            mMetrics.onRefreshFinished(SystemClock.uptimeMillis() - mRefreshStartTime, true);
+        if (mPageSizeController != null && isRefreshing)
+            mPageSizeController.onLoadFinished(SystemClock.uptimeMillis() - mRefreshStartTime);
+        for (RefreshHeader header : mHeaders)
+            header.refreshCompleted();
         isRefreshing = false;
     }
 
     public void notifyLoadMoreCompleted() {
+        if (mMetrics != null && isLoading)
+            mMetrics.onLoadMoreFinished(SystemClock.uptimeMillis() - mLoadMoreStartTime, true);
+        if (mPageSizeController != null && isLoading)
+            mPageSizeController.onLoadFinished(SystemClock.uptimeMillis() - mLoadMoreStartTime);
         isLoading = false;
+        mRetryAttempt = 0;
+    }
+
+    /**
+     * 加载更早的数据结束(成功或失败)后调用，再次向上滑动到顶时才会重新触发
+     */
+    public void notifyLoadPreviousCompleted() {
+        isLoadingPrevious = false;
+    }
+
+    /**
+     * 在Header下面插入count个item，保持当前第一个可见item的位置不变
+     */
+    public void notifyItemRangePrepended(int count) {
+        if (count <= 0)
+            return;
+        for (int i = 0; i < mHosts.size(); i++)
+            mHosts.get(i).saveAnchor(getHeaderCount());
+        notifyItemRangeInserted(getHeaderCount(), count);
+        for (int i = 0; i < mHosts.size(); i++)
+            mHosts.get(i).restoreAnchor(count);
     }
 
     public void notifyNetError() {
+        if (mMetrics != null && isLoading)
+            mMetrics.onLoadMoreFinished(SystemClock.uptimeMillis() - mLoadMoreStartTime, false);
+        if (mMetrics != null && isRefreshing)
+            mMetrics.onRefreshFinished(SystemClock.uptimeMillis() - mRefreshStartTime, false);
+        if (isLoading) {
+            isLoading = false;
+            mLoadError = true;
+            setFooterState(RefreshFooter.STATE_ERROR);
+            mHandler.post(mShowFooterAction);   //还没显示Footer时也要能看到失败状态
+            long delay = mRetryPolicy == null ? -1 : mRetryPolicy.getDelay(++mRetryAttempt);
+            if (delay >= 0)
+                mHandler.postDelayed(mRetryAction, delay);
+        }
         isRefreshing = false;
-        isLoading = false;
-        mHeaderView.reset();
+        for (RefreshHeader header : mHeaders)
+            header.reset();
+    }
+
+    /**
+     * 最近一次刷新的token，在 {@link OnRefreshListener#onRefresh()} 或 {@link #setRefreshing(boolean)} 之后获取
+     */
+    public int getRefreshToken() {
+        return mRefreshToken;
+    }
+
+    /**
+     * 最近一次加载更多的token，在 {@link OnRefreshListener#onLoadMore()} 中获取
+     */
+    public int getLoadMoreToken() {
+        return mLoadMoreToken;
+    }
+
+    /**
+     * 最近一次加载更早数据的token，在 {@link OnLoadPreviousListener#onLoadPrevious()} 中获取
+     */
+    public int getLoadPreviousToken() {
+        return mLoadPreviousToken;
+    }
+
+    /**
+     * 开始新的刷新后，之前的刷新和加载更多的token都会失效
+     */
+    public boolean isRequestCurrent(int token) {
+        return token != 0 && (token == mRefreshToken || token == mLoadMoreToken || token == mLoadPreviousToken);
+    }
+
+    /**
+     * 在后台线程提前创建指定数量的ViewHolder并放入recyclerView的缓存池，首屏和刷新后第一次滑动不用再在主线程inflate，
+     * 需要在第一页数据绑定之前调用，{@link #onCreateCustomViewHolder(ViewGroup, int)} 需要能在后台线程执行，
+     * 某个类型在后台创建失败时剩下的改到主线程创建
+     * <p>所有Adapter共用一个后台线程，从recyclerView上detach时取消还没完成的；
+     * 通过 {@link #setMaxRecycledViews(int, int)} 设置过上限的类型最多创建到上限，没有设置过的会把缓存池上限提高到count</p>
+     *
+     * @param counts viewType -> 预计需要的数量
+     */
+    public void preInflate(RecyclerView recyclerView, SparseIntArray counts) {
+        SparseIntArray expected = new SparseIntArray(counts.size());
+        for (int i = 0; i < counts.size(); i++) {
+            int viewType = counts.keyAt(i);
+            if (viewType == TYPE_HEADER || viewType == TYPE_FOOTER)
+                continue;
+            int max = mMaxRecycledViews.get(viewType, -1);
+            expected.put(viewType, max >= 0 ? Math.min(counts.valueAt(i), max) : counts.valueAt(i));
+        }
+        PreInflateTask task = new PreInflateTask(recyclerView, expected);
+        mPreInflateTasks.add(task);
+        task.mFuture = getInflateExecutor().submit(task);
+    }
+
+    private static ExecutorService getInflateExecutor() {
+        synchronized (SimpleRefreshAdapter.class) {
+            if (sInflateExecutor == null)
+                sInflateExecutor = Executors.newSingleThreadExecutor();
+            return sInflateExecutor;
+        }
     }
 
     @Override
     public void onViewAttachedToWindow(RecyclerView.ViewHolder holder) {
         //Log.e("onViewAttached()", "holder: " + holder);
-        if (holder.itemView instanceof RefreshHeader)   //^_^,到顶了
-            isHeaderShowing = true;
+        Host host = holder.itemView instanceof RefreshHeader ? findHostByHeader(holder.itemView) : null;
+        if (host != null) {   //^_^,到顶了
+            host.headerShowing = true;
+        }
 
         ViewGroup.LayoutParams layoutParams = holder.itemView.getLayoutParams();
-        if (layoutParams instanceof StaggeredGridLayoutManager.LayoutParams && holder instanceof ViewHolder) {
+        if (layoutParams instanceof StaggeredGridLayoutManager.LayoutParams) {
             //if (isHeader(holder.getLayoutPosition()) || isFooter(holder.getLayoutPosition()))
-            ((StaggeredGridLayoutManager.LayoutParams) layoutParams).setFullSpan(true);
+            StaggeredGridLayoutManager.LayoutParams lp = (StaggeredGridLayoutManager.LayoutParams) layoutParams;
+            boolean fullSpan = isFullSpanViewType(holder.getItemViewType());
+            if (lp.isFullSpan() != fullSpan)    //没变化时不设置，避免重新测量
+                lp.setFullSpan(fullSpan);
         }
     }
 
     @Override
     public void onViewDetachedFromWindow(RecyclerView.ViewHolder holder) {
         //Log.e("onViewDetached()", "holder: " + holder);
-        if (holder.itemView instanceof RefreshHeader)   //o.o,顶部已经划过了
-            isHeaderShowing = false;
+        Host host = holder.itemView instanceof RefreshHeader ? findHostByHeader(holder.itemView) : null;
+        if (host != null) {   //o.o,顶部已经划过了
+            host.headerShowing = false;
+            mHandler.removeCallbacks(mLoadPreviousAction);
+            if (!mFooterShown)
+                mHandler.post(mShowFooterAction);
+        } else if (mSizeCache != null && !(holder instanceof ViewHolder)
+                && mDeclaredHeights.get(holder.getItemViewType()) == ViewGroup.LayoutParams.WRAP_CONTENT
+                && holder.itemView.getLayoutParams() instanceof StaggeredGridLayoutManager.LayoutParams
+                && mSizeCache.get(holder.getAdapterPosition(), holder.getItemId()) < 0) {
+            mSizeCache.put(holder.getAdapterPosition(), holder.getItemId(), holder.itemView.getHeight());  //记录测量结果
+        }
     }
 
     @Override
     public void onAttachedToRecyclerView(final RecyclerView recyclerView) {
-        if (mHeaderEnabled)
-            mHeaderView = new RefreshHeader(recyclerView.getContext());
-
-        if (mFooterEnabled)
-            mFooterView = LayoutInflater.from(recyclerView.getContext()).inflate(R.layout.footer, recyclerView, false);
+        Host host = findHost(recyclerView);
+        if (host == null) {
+            host = new Host(recyclerView);
+            mHosts.add(host);
+        }
+        RecyclerView.RecycledViewPool pool = recyclerView.getRecycledViewPool();
+        for (int i = 0; i < mMaxRecycledViews.size(); i++)
+            pool.setMaxRecycledViews(mMaxRecycledViews.keyAt(i), mMaxRecycledViews.valueAt(i));
 
         RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
         if (layoutManager instanceof GridLayoutManager) {
-            final GridLayoutManager gridLayoutManager = (GridLayoutManager) layoutManager;
-            gridLayoutManager.setSpanSizeLookup(new GridLayoutManager.SpanSizeLookup() {
-                @Override
-                public int getSpanSize(int position) {
-                    return isHeader(position) || isFooter(position) ? gridLayoutManager.getSpanCount() : 1;
-                }
-            });
+            GridLayoutManager gridLayoutManager = (GridLayoutManager) layoutManager;
+            GridLayoutManager.SpanSizeLookup lookup = gridLayoutManager.getSpanSizeLookup();
+            if (!(lookup instanceof SimpleRefreshAdapter.FullSpanSizeLookup)
+                    || ((SimpleRefreshAdapter.FullSpanSizeLookup) lookup).getAdapter() != this)
+                gridLayoutManager.setSpanSizeLookup(new FullSpanSizeLookup(gridLayoutManager));
         }
 
         /*recyclerView.addOnChildAttachStateChangeListener(new RecyclerView.OnChildAttachStateChangeListener() {
@@ -130,60 +573,453 @@ public abstract class SimpleRefreshAdapter<T extends RecyclerView.ViewHolder> ex
             }
         });*/
 
-        recyclerView.setOnTouchListener(new View.OnTouchListener() {
-            private float mLastY;
-            private float dY;
+        recyclerView.removeOnScrollListener(mTopEdgeListener);
+        recyclerView.addOnScrollListener(mTopEdgeListener);
+        updateTrimCallbacks();
+        if (recyclerView.getParent() instanceof RefreshLayout) {  //嵌套滑动由外层处理，不再抢占触摸事件
+            ((RefreshLayout) recyclerView.getParent()).attach(this, recyclerView);
+            return;
+        }
+        if (host.touchListener == null)
+            host.touchListener = new PullTouchListener();
+        recyclerView.setOnTouchListener(host.touchListener);
+    }
 
-            @Override
-            public boolean onTouch(View v, MotionEvent event) {
-                if (!isRefreshing && isHeaderShowing) {
-                    switch (event.getAction()) {
-                        case MotionEvent.ACTION_DOWN:
-                            mLastY = event.getRawY();
-                            break;
-                        case MotionEvent.ACTION_MOVE:
-                            float moveY = event.getRawY();
-                            dY += moveY - mLastY;
-                            mHeaderView.onMove((int) dY / 3);
-                            mLastY = moveY;
-                            break;
-                        case MotionEvent.ACTION_UP:
-                            dY = 0;
-                            if (mHeaderView.onRelease()) {
-                                isRefreshing = true;
-                                mOnRefreshListener.onRefresh();
-                            }
-                            break;
-                    }
-                    return mHeaderView.getHeight() > 1;
-                }
-                return false;
-            }
-        });
+    @Override
+    public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+        for (int i = mPreInflateTasks.size() - 1; i >= 0; i--)
+            if (mPreInflateTasks.get(i).mRecyclerView == recyclerView)
+                mPreInflateTasks.remove(i).cancel();
+        recyclerView.removeOnScrollListener(mTopEdgeListener);
+        if (recyclerView.getParent() instanceof RefreshLayout)
+            ((RefreshLayout) recyclerView.getParent()).detach(recyclerView);
+        Host host = findHost(recyclerView);
+        if (host == null)
+            return;
+        mHosts.remove(host);
+        //只留一个给下次attach复用，其余的随RecyclerView一起释放
+        if (host.header != null && findSpareHeader() != host.header)
+            mHeaders.remove(host.header);
+        if (host.footer != null && findSpareFooter() != host.footer)
+            mFooters.remove(host.footer);
+        updateTrimCallbacks();
     }
 
     @Override
     public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
         if (viewType == TYPE_HEADER)
-            return new ViewHolder(mHeaderView);
+            return new ViewHolder(obtainHeader(parent));
         if (viewType == TYPE_FOOTER)
-            return new ViewHolder(mFooterView);
-        return onCreateCustomViewHolder(parent, viewType);
+            return new ViewHolder(obtainFooter(parent));
+        long start = mMetrics != null ? System.nanoTime() : 0;
+        T holder = onCreateCustomViewHolder(parent, viewType);
+        //preInflate在后台创建的回到主线程再记录
+        if ((mMetrics != null || mSizeCache != null) && Looper.myLooper() == Looper.getMainLooper()) {
+            if (mMetrics != null)
+                mMetrics.onViewHolderCreated(viewType, System.nanoTime() - start);
+            recordDeclaredHeight(holder, viewType);
+        }
+        return holder;
+    }
+
+    private void recordDeclaredHeight(RecyclerView.ViewHolder holder, int viewType) {
+        ViewGroup.LayoutParams layoutParams = holder.itemView.getLayoutParams();
+        if (mSizeCache != null && layoutParams != null && mDeclaredHeights.indexOfKey(viewType) < 0)
+            mDeclaredHeights.put(viewType, layoutParams.height);
+    }
+
+    private RefreshHeader obtainHeader(ViewGroup parent) {
+        Host host = findHost(parent);
+        if (host != null && host.header != null && host.header.getParent() == null)
+            return host.header;
+        RefreshHeader header = findSpareHeader();
+        if (header == null || header.getParent() != null) {
+            header = new RefreshHeader(parent.getContext());
+            header.setLayoutFree(mLayoutFreePull);
+            header.setOnStateChangeListener(mHeaderStateListener);
+            header.setMetricsListener(mMetrics);
+            if (isRefreshing)
+                header.setRefreshing(true);
+            mHeaders.add(header);
+        }
+        if (host != null) {
+            if (host.header != null)    //旧的还在做消失动画，不再跟随状态
+                mHeaders.remove(host.header);
+            host.header = header;
+        }
+        return header;
+    }
+
+    private RefreshFooter obtainFooter(ViewGroup parent) {
+        Host host = findHost(parent);
+        if (host != null && host.footer != null && host.footer.getParent() == null)
+            return host.footer;
+        RefreshFooter footer = findSpareFooter();
+        if (footer == null || footer.getParent() != null) {
+            footer = new RefreshFooter(parent.getContext());
+            footer.setOnClickListener(mFooterClickListener);
+            if (mLoadError)
+                footer.setState(RefreshFooter.STATE_ERROR);
+            mFooters.add(footer);
+        }
+        if (host != null) {
+            if (host.footer != null)
+                mFooters.remove(host.footer);
+            host.footer = footer;
+        }
+        return footer;
+    }
+
+    private Host findHost(View recyclerView) {
+        for (int i = 0; i < mHosts.size(); i++)
+            if (mHosts.get(i).recyclerView == recyclerView)
+                return mHosts.get(i);
+        return null;
+    }
+
+    private Host findHostByHeader(View header) {
+        for (int i = 0; i < mHosts.size(); i++)
+            if (mHosts.get(i).header == header)
+                return mHosts.get(i);
+        return null;
+    }
+
+    /**
+     * 不属于任何RecyclerView的Header，detach后留下的
+     */
+    private RefreshHeader findSpareHeader() {
+        for (RefreshHeader header : mHeaders)
+            if (findHostByHeader(header) == null)
+                return header;
+        return null;
+    }
+
+    private RefreshFooter findSpareFooter() {
+        outer:
+        for (RefreshFooter footer : mFooters) {
+            for (int i = 0; i < mHosts.size(); i++)
+                if (mHosts.get(i).footer == footer)
+                    continue outer;
+            return footer;
+        }
+        return null;
+    }
+
+    /**
+     * 该RecyclerView的Footer，还没有创建或内存不足时已经释放则返回null
+     */
+    protected RefreshFooter getFooterView(RecyclerView recyclerView) {
+        Host host = findHost(recyclerView);
+        return host != null ? host.footer : null;
+    }
+
+    /**
+     * 开启后attach到第一个RecyclerView时注册，最后一个detach时注销
+     */
+    private void updateTrimCallbacks() {
+        if (mTrimMemoryEnabled && !mHosts.isEmpty())
+            registerTrimCallbacks(mHosts.get(0).recyclerView.getContext());
+        else
+            unregisterTrimCallbacks();
+    }
+
+    private void registerTrimCallbacks(Context context) {
+        if (mTrimContext != null)
+            return;
+        mTrimContext = context.getApplicationContext();
+        mTrimContext.registerComponentCallbacks(mTrimCallbacks);
+    }
+
+    private void unregisterTrimCallbacks() {
+        if (mTrimContext != null) {
+            mTrimContext.unregisterComponentCallbacks(mTrimCallbacks);
+            mTrimContext = null;
+        }
+    }
+
+    /**
+     * 该RecyclerView当前显示的Header，还没有显示过时返回null
+     */
+    RefreshHeader getHeader(View recyclerView) {
+        Host host = findHost(recyclerView);
+        return host != null && host.header != null && host.header.getParent() == recyclerView ? host.header : null;
+    }
+
+    private void setFooterState(int state) {
+        for (RefreshFooter footer : mFooters)
+            footer.setState(state);
+    }
+
+    /**
+     * 内容超过一屏后才把Footer加入列表
+     */
+    private void showFooter() {
+        if (mFooterShown || !mFooterEnabled || getCustomItemCount() == 0)
+            return;
+        if (!mLoadError && !canAnyScroll())
+            return;
+        mFooterShown = true;
+        notifyItemInserted(getItemCount() - 1);
     }
 
     @Override
     public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+        onBindViewHolder(holder, position, Collections.emptyList());
+    }
+
+    @Override
+    public void onBindViewHolder(RecyclerView.ViewHolder holder, int position, List<Object> payloads) {
         //Log.e("onBindViewHolder()", "position: " + position);
         if (holder.getItemViewType() == TYPE_HEADER)
             return;
         if (holder.getItemViewType() == TYPE_FOOTER) {
-            if (!isLoading) {
-                isLoading = true;
-                mOnRefreshListener.onLoadMore();
-            }
+            if (canLoadMore())
+                loadMore();
+            return;
+        }
+        if (!payloads.isEmpty()) {     //局部刷新，不是滑动产生的绑定
+            onBindCustomViewHolder((T) holder, position, payloads);
             return;
         }
+        if (mFooterEnabled) {
+            if (!isFooterShown() && position == getItemCount() - 1 && canLoadMore())
+                loadMore();     //还没有Footer时滑到最后一个直接加载
+            prefetch(position);
+        }
+        if (mSizeCache != null)
+            applyItemSize(holder, position);
+        if (mMetrics == null) {
+            onBindCustomViewHolder((T) holder, position);
+            return;
+        }
+        long start = System.nanoTime();
         onBindCustomViewHolder((T) holder, position);
+        mMetrics.onViewHolderBound(holder.getItemViewType(), System.nanoTime() - start);
+    }
+
+    private void applyItemSize(RecyclerView.ViewHolder holder, int position) {
+        ViewGroup.LayoutParams layoutParams = holder.itemView.getLayoutParams();
+        if (!(layoutParams instanceof StaggeredGridLayoutManager.LayoutParams))
+            return;
+        long id = hasStableIds() ? getItemId(position) : RecyclerView.NO_ID;
+        int size = mSizeCache.get(position, id);
+        if (size < 0) {
+            size = getCustomItemSize(position);
+            if (size >= 0)
+                mSizeCache.put(position, id, size);
+            else    //复用的ViewHolder可能带着上一个item的高度
+                size = mDeclaredHeights.get(holder.getItemViewType(), layoutParams.height);
+        }
+        if (layoutParams.height != size)
+            layoutParams.height = size;     //绑定在layout之前，不需要requestLayout
+    }
+
+    private boolean canAnyScroll() {
+        for (int i = 0; i < mHosts.size(); i++) {
+            RecyclerView rv = mHosts.get(i).recyclerView;
+            if (rv.canScrollVertically(-1) || rv.canScrollVertically(1))
+                return true;
+        }
+        return false;
+    }
+
+    boolean canPull(RecyclerView recyclerView) {
+        return mHeaderEnabled && getHeader(recyclerView) != null && !isRefreshing;
+    }
+
+    boolean isFooterShown() {
+        return mFooterEnabled && (mFooterShown || !mHeaderEnabled);
+    }
+
+    boolean isHeaderShowing(View recyclerView) {
+        Host host = findHost(recyclerView);
+        return host != null && host.headerShowing;
+    }
+
+    private boolean isAnyHeaderShowing() {
+        for (int i = 0; i < mHosts.size(); i++)
+            if (mHosts.get(i).headerShowing)
+                return true;
+        return false;
+    }
+
+    int getPullDistance(RecyclerView recyclerView) {
+        Host host = findHost(recyclerView);
+        return host != null ? host.pullDistance : 0;
+    }
+
+    /**
+     * 嵌套滑动时由 {@link RefreshLayout} 传入手指未被消费的位移，向下为正
+     */
+    void pullBy(RecyclerView recyclerView, int dy) {
+        RefreshHeader header = getHeader(recyclerView);
+        if (header == null)
+            return;
+        Host host = findHost(recyclerView);
+        host.pullDistance = Math.max(host.pullDistance + dy, 0);
+        host.pullHeight = host.pullDistance == 0 ? 0 : damp(host.pullHeight, dy, header.getRefreshHeight());
+        header.onMove((int) host.pullHeight);
+    }
+
+    void releasePull(RecyclerView recyclerView) {
+        Host host = findHost(recyclerView);
+        if (host != null) {
+            host.pullDistance = 0;
+            host.pullHeight = 0;
+        }
+        RefreshHeader header = getHeader(recyclerView);
+        if (header != null)
+            release(header);
+    }
+
+    /**
+     * @param distance 惯性滑动剩余的距离，按下拉的阻尼换算成Header的高度
+     */
+    void absorbFling(RecyclerView recyclerView, int distance) {
+        RefreshHeader header = getHeader(recyclerView);
+        if (header != null)
+            header.bounce((int) dampedHeight(distance, header.getRefreshHeight()));
+    }
+
+    /**
+     * 越往下拉阻力越大：开始时手指移动3px Header高1px，到刷新高度时变成4.5px；触摸和嵌套滑动下拉都按这个计算
+     */
+    static float damp(float height, float dy, int refreshHeight) {
+        float resistance = 3 * (1 + height / (2f * refreshHeight));
+        return Math.max(height + dy / resistance, 0);
+    }
+
+    /**
+     * 从0开始一次性移动distance时 {@link #damp(float, float, int)} 累计出的高度：3h + 3h²/(4R) = distance
+     */
+    static float dampedHeight(float distance, int refreshHeight) {
+        return 2f * refreshHeight / 3 * ((float) Math.sqrt(9 + 3 * distance / refreshHeight) - 3);
+    }
+
+    private void release(RefreshHeader header) {
+        if (header.onRelease()) {
+            int token = mSpeculativeToken;
+            mSpeculativeToken = 0;
+            mHandler.removeCallbacks(mCancelSpeculativeAction);
+            startRefresh();
+            if (token != 0)
+                mRefreshToken = token;  //直接使用下拉过程中已经开始的请求
+            isRefreshing = true;
+            mOnRefreshListener.onRefresh();
+        }
+    }
+
+    private void onHeaderStateChanged(int oldState, int newState) {
+        if (!mSpeculativeRefresh || isRefreshing || !(mOnRefreshListener instanceof OnPrefetchRefreshListener))
+            return;
+        if (newState == RefreshHeader.STATE_RELEASE_TO_REFRESH) {
+            mHandler.removeCallbacks(mCancelSpeculativeAction);
+            if (mSpeculativeToken == 0) {    //拉回去又拉过来时继续使用之前的请求
+                mSpeculativeToken = ++mRequestToken;
+                ((OnPrefetchRefreshListener) mOnRefreshListener).onPrefetchRefresh(mSpeculativeToken);
+            }
+        } else if (newState == RefreshHeader.STATE_NORMAL && oldState == RefreshHeader.STATE_RELEASE_TO_REFRESH
+                && mSpeculativeToken != 0) {
+            if (mSpeculativeCacheTime > 0)
+                mHandler.postDelayed(mCancelSpeculativeAction, mSpeculativeCacheTime);
+            else
+                cancelSpeculativeRefresh();
+        }
+    }
+
+    private void cancelSpeculativeRefresh() {
+        mHandler.removeCallbacks(mCancelSpeculativeAction);
+        int token = mSpeculativeToken;
+        mSpeculativeToken = 0;
+        if (token != 0 && mOnRefreshListener instanceof OnPrefetchRefreshListener)
+            ((OnPrefetchRefreshListener) mOnRefreshListener).onCancelPrefetchRefresh(token);
+    }
+
+    private void startRefresh() {
+        cancelSpeculativeRefresh();
+        if ((mMetrics != null || mPageSizeController != null) && !isRefreshing)
+            mRefreshStartTime = SystemClock.uptimeMillis();
+        mRefreshToken = ++mRequestToken;
+        mLoadMoreToken = 0;     //正在进行的加载更多作废
+        mLoadPreviousToken = 0;
+        isLoading = false;
+        isLoadingPrevious = false;
+        clearLoadError();
+    }
+
+    private void clearLoadError() {
+        mHandler.removeCallbacks(mRetryAction);
+        mRetryAttempt = 0;
+        mLoadError = false;
+        setFooterState(RefreshFooter.STATE_LOADING);
+    }
+
+    private void retryLoadMore() {
+        if (!mLoadError || isRefreshing)
+            return;
+        mHandler.removeCallbacks(mRetryAction);
+        mLoadError = false;
+        setFooterState(RefreshFooter.STATE_LOADING);
+        loadMore();
+    }
+
+    private void prefetch(int position) {
+        long now = SystemClock.uptimeMillis();
+        long dt = now - mLastBindTime;
+        int delta = position - mLastBindPosition;
+        if (!isAnyScrolling() || delta <= 0 || dt > 500) {
+            mBindRate = 0;
+            mLastBindPosition = position;
+            mLastBindTime = now;
+        } else if (dt > 0) {
+            mBindRate = (mBindRate + (float) delta / dt) / 2;
+            mLastBindPosition = position;
+            mLastBindTime = now;
+        }   //同一毫秒内绑定的item(快速滑动、Grid的一行)累计到下一次时间变化时再计算
+
+        if (!canLoadMore())
+            return;
+        int distance = mPrefetchDistance;
+        for (int i = 0; mPrefetchScreens > 0 && i < mHosts.size(); i++)
+            distance = Math.max(distance, (int) (mPrefetchScreens * mHosts.get(i).recyclerView.getChildCount()));
+        if (distance <= 0)
+            return;
+        distance += (int) (mBindRate * mPrefetchLookahead);
+        if (getItemCount() - 1 - getFooterCount() - position <= distance)
+            loadMore();
+    }
+
+    private boolean isAnyScrolling() {
+        for (int i = 0; i < mHosts.size(); i++)
+            if (mHosts.get(i).recyclerView.getScrollState() != RecyclerView.SCROLL_STATE_IDLE)
+                return true;
+        return false;
+    }
+
+    private boolean canLoadMore() {
+        return !isLoading && !isRefreshing && !mLoadError;    //失败后等待重试，不在每次绑定时重新请求
+    }
+
+    private void loadPrevious() {
+        if (mOnLoadPreviousListener == null || isLoadingPrevious || isRefreshing
+                || !isAnyHeaderShowing() || getCustomItemCount() == 0)     //没有数据时应该刷新而不是往前加载
+            return;
+        for (int i = 0; i < mHosts.size(); i++)     //正在下拉刷新
+            if (mHosts.get(i).pullDistance > 0 || mHosts.get(i).header != null && mHosts.get(i).header.getVisibleHeight() > 1)
+                return;
+        isLoadingPrevious = true;
+        mLoadPreviousToken = ++mRequestToken;
+        mOnLoadPreviousListener.onLoadPrevious();
+    }
+
+    private void loadMore() {
+        isLoading = true;
+        if (mMetrics != null || mPageSizeController != null)
+            mLoadMoreStartTime = SystemClock.uptimeMillis();
+        if (mPageSizeController != null)
+            mPageSizeController.onScrollRate(mBindRate);
+        mLoadMoreToken = ++mRequestToken;
+        mOnRefreshListener.onLoadMore();
     }
 
     @Override
@@ -192,7 +1028,48 @@ public abstract class SimpleRefreshAdapter<T extends RecyclerView.ViewHolder> ex
             return TYPE_HEADER;
         if (isFooter(position))
             return TYPE_FOOTER;
-        return getCustomItemViewType(position);
+        int viewType = getCustomItemViewType(position);
+        if (viewType == TYPE_HEADER || viewType == TYPE_FOOTER)
+            throw new IllegalStateException("viewType " + viewType + " is reserved for header/footer");
+        return viewType;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        if (isHeader(position))
+            return HEADER_ID;
+        if (isFooter(position))
+            return FOOTER_ID;
+        return getCustomItemId(position);
+    }
+
+    /**
+     * 开启stable ids时返回item的id，position包含Header，不能与 {@link #HEADER_ID}、{@link #FOOTER_ID} 相同
+     */
+    protected long getCustomItemId(int position) {
+        return RecyclerView.NO_ID;
+    }
+
+    /**
+     * 在Grid和StaggeredGrid中占满一行的viewType
+     */
+    protected boolean isFullSpanViewType(int viewType) {
+        return viewType == TYPE_HEADER || viewType == TYPE_FOOTER;
+    }
+
+    /**
+     * 开启 {@link #setItemSizeCacheEnabled(boolean)} 时预先知道的item高度(px)，-1表示由测量结果决定
+     */
+    protected int getCustomItemSize(int position) {
+        return -1;
+    }
+
+    protected int getHeaderCount() {
+        return mHeaderEnabled ? 1 : 0;
+    }
+
+    protected int getFooterCount() {
+        return isFooterShown() && getCustomItemCount() > 0 ? 1 : 0;
     }
 
     protected boolean isHeader(int position) {
@@ -200,7 +1077,7 @@ public abstract class SimpleRefreshAdapter<T extends RecyclerView.ViewHolder> ex
     }
 
     protected boolean isFooter(int position) {
-        return position == getItemCount() - 1 && mFooterEnabled;
+        return position == getItemCount() - 1 && isFooterShown();
     }
 
     @Override
@@ -210,7 +1087,7 @@ public abstract class SimpleRefreshAdapter<T extends RecyclerView.ViewHolder> ex
             return mHeaderEnabled ? 1 : 0;
         if (mHeaderEnabled)
             count++;
-        if (mFooterEnabled)
+        if (isFooterShown())
             count++;
         return count;
     }
@@ -223,6 +1100,13 @@ public abstract class SimpleRefreshAdapter<T extends RecyclerView.ViewHolder> ex
 
     protected abstract void onBindCustomViewHolder(T holder, int position);
 
+    /**
+     * payloads不为空的局部刷新，只需要更新变化的部分，默认整个重新绑定
+     */
+    protected void onBindCustomViewHolder(T holder, int position, List<Object> payloads) {
+        onBindCustomViewHolder(holder, position);
+    }
+
     public interface OnRefreshListener {
 
         void onRefresh();
@@ -230,9 +1114,244 @@ public abstract class SimpleRefreshAdapter<T extends RecyclerView.ViewHolder> ex
         void onLoadMore();
     }
 
+    /**
+     * 提前开始刷新的 {@link OnRefreshListener}：松手时仍然会回调 {@link #onRefresh()}，
+     * 此时 {@link #getRefreshToken()} 等于提前开始时的token，应该继续等待已有的请求而不是重新开始
+     */
+    public interface OnPrefetchRefreshListener extends OnRefreshListener {
+
+        /**
+         * 下拉超过刷新高度，还没有松手
+         */
+        void onPrefetchRefresh(int token);
+
+        /**
+         * 没有松手刷新，提前开始的请求不再需要
+         */
+        void onCancelPrefetchRefresh(int token);
+    }
+
+    public interface OnLoadPreviousListener {
+
+        void onLoadPrevious();
+    }
+
+    private class PullTouchListener implements View.OnTouchListener {
+        private float mLastY;
+        private float mPullHeight;  //阻尼之后Header应有的高度
+        private RefreshHeader mHeader;
+        private PullFrameCallback mFrameCallback;
+
+        @Override
+        public boolean onTouch(View v, MotionEvent event) {
+            if (!isRefreshing && isHeaderShowing(v) && getHeader(v) != null) {
+                mHeader = getHeader(v);
+                boolean frameSync = mFrameSyncPull && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN;
+                switch (event.getAction()) {
+                    case MotionEvent.ACTION_DOWN:
+                        mLastY = frameSync ? event.getY() : event.getRawY();
+                        break;
+                    case MotionEvent.ACTION_MOVE:
+                        //一个MOVE事件里可能批量了多个采样点，阻尼随高度变化，需要逐个计算
+                        float offset = frameSync ? 0 : event.getRawY() - event.getY();
+                        for (int i = 0, size = event.getHistorySize(); i < size; i++) {
+                            float historicalY = event.getHistoricalY(i) + offset;
+                            mPullHeight = damp(mPullHeight, historicalY - mLastY, mHeader.getRefreshHeight());
+                            mLastY = historicalY;
+                        }
+                        float moveY = event.getY() + offset;
+                        mPullHeight = damp(mPullHeight, moveY - mLastY, mHeader.getRefreshHeight());
+                        mLastY = moveY;
+                        if (frameSync) {    //Header留到下一帧再更新
+                            if (mFrameCallback == null)
+                                mFrameCallback = new PullFrameCallback();
+                            mFrameCallback.schedule();
+                        } else
+                            mHeader.onMove((int) mPullHeight);
+                        break;
+                    case MotionEvent.ACTION_UP:
+                        if (mFrameCallback != null && mFrameCallback.cancel())
+                            mHeader.onMove((int) mPullHeight);   //松手前把还没来得及应用的位移补上
+                        mPullHeight = 0;
+                        release(mHeader);
+                        break;
+                    case MotionEvent.ACTION_CANCEL:     //被父View拦截等，收回Header但不刷新
+                        if (mFrameCallback != null)
+                            mFrameCallback.cancel();
+                        mPullHeight = 0;
+                        if (mHeader.getVisibleHeight() > 1)
+                            mHeader.reset();
+                        break;
+                }
+                return mHeader.getHeight() > 1;
+            }
+            return false;
+        }
+
+        @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+        private class PullFrameCallback implements Choreographer.FrameCallback {
+            private boolean mPosted;
+
+            void schedule() {
+                if (!mPosted) {
+                    mPosted = true;
+                    Choreographer.getInstance().postFrameCallback(this);
+                }
+            }
+
+            boolean cancel() {
+                if (!mPosted)
+                    return false;
+                mPosted = false;
+                Choreographer.getInstance().removeFrameCallback(this);
+                return true;
+            }
+
+            @Override
+            public void doFrame(long frameTimeNanos) {
+                mPosted = false;
+                if (!isRefreshing)
+                    mHeader.onMove((int) mPullHeight);
+            }
+        }
+    }
+
+    private class FullSpanSizeLookup extends GridLayoutManager.SpanSizeLookup {
+        private final GridLayoutManager mLayoutManager;
+
+        FullSpanSizeLookup(GridLayoutManager layoutManager) {
+            mLayoutManager = layoutManager;
+            setSpanIndexCacheEnabled(true);     //数据变化时GridLayoutManager会自己清掉缓存
+        }
+
+        SimpleRefreshAdapter<T> getAdapter() {
+            return SimpleRefreshAdapter.this;
+        }
+
+        @Override
+        public int getSpanSize(int position) {
+            return isFullSpanViewType(getItemViewType(position)) ? mLayoutManager.getSpanCount() : 1;
+        }
+    }
+
+    /**
+     * {@link #preInflate(RecyclerView, SparseIntArray)} 的一次后台创建，取消后不再创建剩下的，也不放入缓存池
+     */
+    private class PreInflateTask implements Runnable {
+        final RecyclerView mRecyclerView;
+        private final SparseIntArray mExpected;
+        Future<?> mFuture;
+        private volatile boolean mCancelled;
+
+        PreInflateTask(RecyclerView recyclerView, SparseIntArray expected) {
+            mRecyclerView = recyclerView;
+            mExpected = expected;
+        }
+
+        void cancel() {
+            mCancelled = true;
+            if (mFuture != null)
+                mFuture.cancel(false);
+        }
+
+        @Override
+        public void run() {
+            final ArrayList<RecyclerView.ViewHolder> holders = new ArrayList<>();
+            final ArrayList<Long> durations = new ArrayList<>();    //后台创建的耗时，和holders前面的一一对应
+            final SparseIntArray created = new SparseIntArray(mExpected.size());
+            for (int i = 0; i < mExpected.size(); i++) {
+                int viewType = mExpected.keyAt(i);
+                try {
+                    for (int j = 0, count = mExpected.valueAt(i); j < count; j++) {
+                        if (mCancelled)
+                            return;
+                        long start = System.nanoTime();
+                        holders.add(createViewHolder(mRecyclerView, viewType));
+                        durations.add(System.nanoTime() - start);
+                        created.put(viewType, j + 1);
+                    }
+                } catch (RuntimeException e) {  //例如View的构造方法里创建了Handler
+                    //剩下的回到主线程创建
+                }
+            }
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    mPreInflateTasks.remove(PreInflateTask.this);
+                    if (mCancelled)
+                        return;
+                    RecyclerView.RecycledViewPool pool = mRecyclerView.getRecycledViewPool();
+                    if (mMetrics != null)
+                        for (int i = 0; i < durations.size(); i++)
+                            mMetrics.onViewHolderCreated(holders.get(i).getItemViewType(), durations.get(i));
+                    for (int i = 0; i < mExpected.size(); i++) {
+                        int viewType = mExpected.keyAt(i);
+                        int count = mExpected.valueAt(i);
+                        if (mMaxRecycledViews.indexOfKey(viewType) < 0)     //设置过的上限不改
+                            pool.setMaxRecycledViews(viewType, Math.max(count, 5));
+                        for (int j = created.get(viewType); j < count; j++)
+                            holders.add(createViewHolder(mRecyclerView, viewType));
+                    }
+                    for (RecyclerView.ViewHolder holder : holders) {
+                        recordDeclaredHeight(holder, holder.getItemViewType());
+                        pool.putRecycledView(holder);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * attach的每个RecyclerView各自的Header、Footer和下拉状态
+     */
+    private class Host {
+        final RecyclerView recyclerView;
+        RefreshHeader header;
+        RefreshFooter footer;
+        boolean headerShowing;
+        int pullDistance;   //手指位移
+        float pullHeight;   //阻尼之后Header的高度
+        PullTouchListener touchListener;
+        private View mAnchor;
+        private int mAnchorPosition;
+
+        Host(RecyclerView recyclerView) {
+            this.recyclerView = recyclerView;
+        }
+
+        /**
+         * 记下第一个可见的item，插入前调用
+         */
+        void saveAnchor(int headerCount) {
+            mAnchor = null;
+            mAnchorPosition = RecyclerView.NO_POSITION;
+            for (int i = 0; i < recyclerView.getChildCount(); i++) {
+                View child = recyclerView.getChildAt(i);
+                int position = recyclerView.getChildAdapterPosition(child);
+                if (position >= headerCount && (mAnchor == null || position < mAnchorPosition)) {
+                    mAnchor = child;
+                    mAnchorPosition = position;
+                }
+            }
+        }
+
+        void restoreAnchor(int count) {
+            if (mAnchor == null)
+                return;
+            RecyclerView.LayoutManager lm = recyclerView.getLayoutManager();
+            int offset = lm.getDecoratedTop(mAnchor) - recyclerView.getPaddingTop();
+            mAnchor = null;
+            if (lm instanceof LinearLayoutManager)  //插入的item在anchor上面，只移动位置不重新绑定可见的item
+                ((LinearLayoutManager) lm).scrollToPositionWithOffset(mAnchorPosition + count, offset);
+            else if (lm instanceof StaggeredGridLayoutManager)
+                ((StaggeredGridLayoutManager) lm).scrollToPositionWithOffset(mAnchorPosition + count, offset);
+        }
+    }
+
     private static class ViewHolder extends RecyclerView.ViewHolder {
         ViewHolder(View itemView) {
             super(itemView);
+            setIsRecyclable(false);     //Header/Footer属于当前Adapter，不能进入可能被共用的缓存池
         }
     }
 
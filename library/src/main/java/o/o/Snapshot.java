@@ -0,0 +1,100 @@
+package o.o;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * @author https://github.com/timelessx
+ *         {@link SimpleListAdapter#setSnapshot(Snapshot)} 使用的磁盘快照，保存最近一次刷新成功的第一页数据，
+ *         冷启动时先显示快照，真正的刷新完成后再diff更新；读写都在后台线程进行
+ */
+public class Snapshot<D> {
+
+    private static final int MAGIC = 0x6f2e6f00;
+
+    private final File mFile;
+    private final Serializer<D> mSerializer;
+    private final int mVersion;
+
+    /**
+     * @param version 数据格式变化时修改，版本不一致的快照会被忽略
+     */
+    public Snapshot(File file, int version, Serializer<D> serializer) {
+        mFile = file;
+        mVersion = version;
+        mSerializer = serializer;
+    }
+
+    /**
+     * 没有快照或读取失败时返回null
+     */
+    List<D> read() {
+        if (!mFile.exists())
+            return null;
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(mFile)));
+            if (in.readInt() != MAGIC || in.readInt() != mVersion)
+                return null;
+            return mSerializer.read(in);
+        } catch (IOException | RuntimeException e) {   //格式变了没改版本号时也可能读出负的长度之类
+            mFile.delete();     //o.o,损坏的快照直接丢弃
+            return null;
+        } finally {
+            close(in);
+        }
+    }
+
+    /**
+     * 先写临时文件再重命名，读到的总是完整的快照
+     */
+    void write(List<D> list) {
+        File tmp = new File(mFile.getPath() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            out.writeInt(MAGIC);
+            out.writeInt(mVersion);
+            mSerializer.write(out, list);
+            out.close();
+            out = null;
+            tmp.renameTo(mFile);
+        } catch (IOException | RuntimeException e) {   //写失败只是没有快照，不能让异常抛到加载线程上
+            //保留原来的快照
+        } finally {
+            close(out);
+            tmp.delete();   //重命名成功后已经不存在
+        }
+    }
+
+    public void clear() {
+        mFile.delete();
+    }
+
+    private static void close(java.io.Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * 数据的二进制格式，在后台线程调用；read抛出的IOException和RuntimeException都当作快照损坏，
+     * write抛出时放弃这次写入
+     */
+    public interface Serializer<D> {
+
+        void write(DataOutputStream out, List<D> list) throws IOException;
+
+        List<D> read(DataInputStream in) throws IOException;
+    }
+}
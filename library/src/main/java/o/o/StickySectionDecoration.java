@@ -0,0 +1,112 @@
+package o.o;
+
+import android.graphics.Canvas;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * @author https://github.com/timelessx
+ *         让 {@link SectionedRefreshAdapter} 的组头吸顶，当前组的组头单独绑定一份画在最上面，
+ *         下一组的组头靠近时把它顶上去；列表在最顶部(刷新Header可见)时不绘制
+ *         <p>会监听Adapter的数据变化，移除时需要调用 {@link #release()}</p>
+ */
+public class StickySectionDecoration<T extends RecyclerView.ViewHolder> extends RecyclerView.ItemDecoration {
+
+    private final SectionedRefreshAdapter<T> mAdapter;
+    private T mStickyHolder;
+    private int mStickySection = -1;
+    private int mStickyWidth;
+
+    private final RecyclerView.AdapterDataObserver mObserver = new RecyclerView.AdapterDataObserver() {
+        @Override
+        public void onChanged() {
+            mStickySection = -1;
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            mStickySection = -1;
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            mStickySection = -1;
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            mStickySection = -1;
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            mStickySection = -1;
+        }
+    };
+
+    public StickySectionDecoration(SectionedRefreshAdapter<T> adapter) {
+        mAdapter = adapter;
+        adapter.registerAdapterDataObserver(mObserver);
+    }
+
+    /**
+     * 从RecyclerView上移除或者替换成新的实例时调用，不再监听Adapter的数据变化
+     */
+    public void release() {
+        mAdapter.unregisterAdapterDataObserver(mObserver);
+        mStickyHolder = null;
+        mStickySection = -1;
+    }
+
+    @Override
+    public void onDrawOver(Canvas c, RecyclerView parent, RecyclerView.State state) {
+        int first = RecyclerView.NO_POSITION;
+        for (int i = 0, count = parent.getChildCount(); i < count; i++) {
+            int position = parent.getChildAdapterPosition(parent.getChildAt(i));
+            if (position != RecyclerView.NO_POSITION && (first == RecyclerView.NO_POSITION || position < first))
+                first = position;
+        }
+        int headerCount = mAdapter.getHeaderCount();
+        int customCount = mAdapter.getCustomItemCount();
+        if (first == RecyclerView.NO_POSITION || first < headerCount || first >= headerCount + customCount)
+            return;
+
+        int section = mAdapter.getSectionForPosition(first);
+        RecyclerView.LayoutManager layoutManager = parent.getLayoutManager();
+        View current = layoutManager.findViewByPosition(mAdapter.getSectionHeaderPosition(section));
+        if (current != null && current.getTop() >= parent.getPaddingTop())
+            return;     //组头本身完整可见
+
+        View sticky = getStickyView(parent, section);
+        int offset = 0;
+        if (section + 1 < mAdapter.getSectionCount()) {
+            View next = layoutManager.findViewByPosition(mAdapter.getSectionHeaderPosition(section + 1));
+            if (next != null && next.getTop() - parent.getPaddingTop() < sticky.getHeight())
+                offset = next.getTop() - parent.getPaddingTop() - sticky.getHeight();
+        }
+        int saveCount = c.save();
+        c.translate(parent.getPaddingLeft(), parent.getPaddingTop() + offset);
+        sticky.draw(c);
+        c.restoreToCount(saveCount);
+    }
+
+    private View getStickyView(RecyclerView parent, int section) {
+        if (mStickyHolder == null)
+            mStickyHolder = mAdapter.onCreateSectionHeaderViewHolder(parent);   //不经过RecycledViewPool
+        View view = mStickyHolder.itemView;
+        int width = parent.getWidth() - parent.getPaddingLeft() - parent.getPaddingRight();
+        if (section == mStickySection && width == mStickyWidth)
+            return view;
+        mAdapter.onBindSectionHeaderViewHolder(mStickyHolder, section);
+        ViewGroup.LayoutParams layoutParams = view.getLayoutParams();
+        int heightSpec = layoutParams != null && layoutParams.height > 0
+                ? View.MeasureSpec.makeMeasureSpec(layoutParams.height, View.MeasureSpec.EXACTLY)
+                : View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        view.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY), heightSpec);
+        view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+        mStickySection = section;
+        mStickyWidth = width;
+        return view;
+    }
+}
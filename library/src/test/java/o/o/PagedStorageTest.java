@@ -0,0 +1,74 @@
+package o.o;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author https://github.com/timelessx
+ *         刷新之后才完成的重新加载不能覆盖新数据
+ */
+public class PagedStorageTest {
+
+    private static final int PAGE_SIZE = 10;
+
+    private PagedStorage<Integer> mStorage;
+    private int mRequestedPage;
+    private int mRequestedGeneration;
+
+    @Before
+    public void setUp() {
+        mStorage = new PagedStorage<>(PAGE_SIZE);
+        mStorage.setMaxLoadedItems(2 * PAGE_SIZE);
+        mStorage.setPageLoader(new PagedStorage.PageLoader() {
+            @Override
+            public void onLoadPage(PagedStorage<?> storage, int page, int start, int count, int generation) {
+                mRequestedPage = page;
+                mRequestedGeneration = generation;
+            }
+        });
+        mStorage.addAll(range(0, 4 * PAGE_SIZE));   //只保留最后两页
+        mRequestedPage = -1;
+    }
+
+    @Test
+    public void reloadFillsTrimmedPage() {
+        Assert.assertNull(mStorage.get(0));
+        Assert.assertEquals(0, mRequestedPage);
+        mStorage.setPage(0, range(0, PAGE_SIZE), mRequestedGeneration);
+        Assert.assertEquals(Integer.valueOf(0), mStorage.get(0));
+    }
+
+    @Test
+    public void staleReloadDoesNotOverwriteRefreshedData() {
+        Assert.assertNull(mStorage.get(0));
+        int generation = mRequestedGeneration;
+        mStorage.clear();
+        mStorage.addAll(range(100, 4 * PAGE_SIZE));
+        mStorage.setPage(0, range(0, PAGE_SIZE), generation);
+        Assert.assertFalse(mStorage.isPageLoaded(0));    //旧数据没有填进去，仍然等待重新加载
+    }
+
+    @Test
+    public void staleReloadIgnoredWhenRefreshedDataIsShorter() {
+        Assert.assertNull(mStorage.get(PAGE_SIZE));
+        int page = mRequestedPage;
+        int generation = mRequestedGeneration;
+        mStorage.clear();
+        mStorage.addAll(range(100, PAGE_SIZE / 2));
+        mStorage.setPage(page, range(0, PAGE_SIZE), generation);    //不再抛出异常
+        Assert.assertEquals(PAGE_SIZE / 2, mStorage.size());
+        Assert.assertEquals(Integer.valueOf(100), mStorage.get(0));
+    }
+
+    private static List<Integer> range(int start, int count) {
+        Integer[] items = new Integer[count];
+        for (int i = 0; i < count; i++)
+            items[i] = start + i;
+        return new ArrayList<>(Arrays.asList(items));
+    }
+}
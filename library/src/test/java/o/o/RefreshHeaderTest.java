@@ -0,0 +1,104 @@
+package o.o;
+
+import android.animation.ValueAnimator;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * @author https://github.com/timelessx
+ *         一次完整的下拉/刷新/完成过程中RefreshHeader的分配；先用同样时长的空动画跑一遍对照，
+ *         扣掉Robolectric的Scheduler和Choreographer每帧的开销，剩下的才是Header自身分配的
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class RefreshHeaderTest {
+
+    private static final int WARMUP_CYCLES = 5;
+    private static final int CYCLES = 50;
+    /**
+     * 扣掉对照之后Header应该不分配，只留一点测量误差；
+     * 每次状态切换都新建一个ValueAnimator或者每帧装箱一个Integer都会超出
+     */
+    private static final long BYTES_PER_CYCLE = 256;
+
+    private com.sun.management.ThreadMXBean mThreadBean;
+    private RefreshHeader mHeader;
+    private ValueAnimator mControlHeight, mControlArrow;
+
+    @Before
+    public void setUp() {
+        mThreadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assert.assertTrue("thread allocation counting is not supported on this JVM",
+                mThreadBean.isThreadAllocatedMemorySupported());
+        mThreadBean.setThreadAllocatedMemoryEnabled(true);
+        mHeader = new RefreshHeader(RuntimeEnvironment.application);
+        ValueAnimator.AnimatorUpdateListener listener = new ValueAnimator.AnimatorUpdateListener() {
+            @Override
+            public void onAnimationUpdate(ValueAnimator animation) {
+            }
+        };
+        mControlHeight = ValueAnimator.ofFloat(0, 1).setDuration(300);
+        mControlHeight.addUpdateListener(listener);
+        mControlArrow = ValueAnimator.ofFloat(0, 1).setDuration(150);
+        mControlArrow.addUpdateListener(listener);
+    }
+
+    @Test
+    public void cycleReturnsToNormal() {
+        cycle();
+        Assert.assertEquals(RefreshHeader.STATE_NORMAL, mHeader.mState);
+        Assert.assertEquals(1, mHeader.getVisibleHeight());
+    }
+
+    @Test
+    public void cycleStaysWithinAllocationBudget() {
+        for (int i = 0; i < WARMUP_CYCLES; i++) {   //类加载和第一次使用时的初始化
+            controlCycle();
+            cycle();
+        }
+        long threadId = Thread.currentThread().getId();
+        long before = mThreadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < CYCLES; i++)
+            controlCycle();
+        long control = mThreadBean.getThreadAllocatedBytes(threadId) - before;
+        before = mThreadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < CYCLES; i++)
+            cycle();
+        long header = mThreadBean.getThreadAllocatedBytes(threadId) - before;
+        long perCycle = (header - control) / CYCLES;
+        Assert.assertTrue("header allocated " + perCycle + " bytes per cycle over the control run ("
+                + control / CYCLES + " bytes), budget " + BYTES_PER_CYCLE, perCycle <= BYTES_PER_CYCLE);
+    }
+
+    private void cycle() {
+        for (int distance = 0; distance <= 600; distance += 20)
+            mHeader.onMove(distance);
+        Assert.assertTrue(mHeader.onRelease());
+        Robolectric.getForegroundThreadScheduler().advanceBy(1000);   //停在刷新高度
+        Assert.assertEquals(RefreshHeader.STATE_REFRESHING, mHeader.mState);
+        mHeader.refreshCompleted();
+        Robolectric.getForegroundThreadScheduler().advanceBy(1000);   //收起并回到初始状态
+    }
+
+    /**
+     * 和 {@link #cycle()} 相同的动画时长和推进时间，但不经过Header
+     */
+    private void controlCycle() {
+        mControlArrow.start();      //拉过刷新高度时箭头翻转，紧接着松手
+        mControlHeight.start();
+        Robolectric.getForegroundThreadScheduler().advanceBy(1000);
+        mControlHeight.start();     //收起，600ms后回到初始状态时箭头转回
+        Robolectric.getForegroundThreadScheduler().advanceBy(600);
+        mControlArrow.start();
+        Robolectric.getForegroundThreadScheduler().advanceBy(400);
+    }
+}
@@ -0,0 +1,80 @@
+package o.o;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author https://github.com/timelessx
+ *         Serializer抛出的异常不能传到加载线程上，也不能留下临时文件
+ */
+public class SnapshotTest {
+
+    private File mFile;
+
+    @Before
+    public void setUp() throws IOException {
+        mFile = File.createTempFile("snapshot", ".bin");
+        mFile.delete();
+        mFile.deleteOnExit();
+    }
+
+    @Test
+    public void roundTrip() {
+        Snapshot<String> snapshot = new Snapshot<>(mFile, 1, new StringSerializer(false, false));
+        snapshot.write(Collections.singletonList("o.o"));
+        Assert.assertEquals(Collections.singletonList("o.o"), snapshot.read());
+    }
+
+    @Test
+    public void throwingWriteKeepsPreviousSnapshot() {
+        new Snapshot<>(mFile, 1, new StringSerializer(false, false)).write(Collections.singletonList("o.o"));
+        Snapshot<String> snapshot = new Snapshot<>(mFile, 1, new StringSerializer(true, false));
+        snapshot.write(Collections.singletonList("^_^"));
+        Assert.assertFalse(new File(mFile.getPath() + ".tmp").exists());
+        Assert.assertEquals(Collections.singletonList("o.o"),
+                new Snapshot<>(mFile, 1, new StringSerializer(false, false)).read());
+    }
+
+    @Test
+    public void throwingReadDeletesSnapshot() {
+        new Snapshot<>(mFile, 1, new StringSerializer(false, false)).write(Collections.singletonList("o.o"));
+        Assert.assertNull(new Snapshot<>(mFile, 1, new StringSerializer(false, true)).read());
+        Assert.assertFalse(mFile.exists());
+    }
+
+    private static class StringSerializer implements Snapshot.Serializer<String> {
+        private final boolean mThrowOnWrite, mThrowOnRead;
+
+        StringSerializer(boolean throwOnWrite, boolean throwOnRead) {
+            mThrowOnWrite = throwOnWrite;
+            mThrowOnRead = throwOnRead;
+        }
+
+        @Override
+        public void write(DataOutputStream out, List<String> list) throws IOException {
+            out.writeInt(list.size());
+            for (String item : list)
+                out.writeUTF(mThrowOnWrite ? null : item);     //null字段，NullPointerException
+        }
+
+        @Override
+        public List<String> read(DataInputStream in) throws IOException {
+            int size = in.readInt();
+            if (mThrowOnRead)
+                size = -size;
+            ArrayList<String> list = new ArrayList<>(size);     //负数，IllegalArgumentException
+            for (int i = 0; i < size; i++)
+                list.add(in.readUTF());
+            return list;
+        }
+    }
+}